@@ -0,0 +1,52 @@
+package com.benchmarks;
+
+import com.source.ExcelTaskSource;
+import com.utils.ExcelDataReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The aggregation step of ingestion without the xlsx parsing: the rows of the ingestion fixtures, already parsed,
+// go through ExcelDataReader.mergeRows(), i.e. de-duplication by key and processTaskStatus for every row
+// Reports the same "rows" and "peakHeapMb" counters as IngestionBenchmark; the parsed rows themselves stay on the heap
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private List<ExcelDataReader.ExcelModel> parsedRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parsedRows = Fixtures.rows(rows);
+    }
+
+    @Benchmark
+    public ExcelDataReader aggregate(RowCounter counter, HeapPeak heap) {
+        heap.begin();
+        // The source is never read, mergeRows() is handed the rows directly
+        ExcelDataReader reader = new ExcelDataReader(new ExcelTaskSource("generated-" + rows));
+        reader.mergeRows(parsedRows);
+        heap.end();
+        counter.rows += parsedRows.size();
+        return reader;
+    }
+}
@@ -0,0 +1,217 @@
+package com.benchmarks;
+
+import com.service.DataService;
+import com.source.DirectoryFollower;
+import com.source.TaskSources;
+import com.tools.WorkloadGenerator;
+import com.utils.DashboardConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Bytes the refresh pipeline allocates per refresh in steady state, against allocation-budgets.properties:
+//   no change  the scheduler polls an unchanged CSV once a second; such a refresh must stay nearly free
+//   delta      new export files of 100 and 1000 rows land in a followed drop directory on top of the base rows;
+//              the difference between the two sizes gives the cost per new row, and a delta of 100 less a
+//              no change refresh must stay within that many per row costs plus a fixed publication budget
+//              (snapshot, history, change log). The history and change log are incremental, but the snapshot
+//              still indexes every row, so the fixed part grows slowly with the rows already held and the
+//              delta of 100 is only checked at the default base rows
+// Allocation is read per thread from ThreadMXBean and summed over every thread but this one, so the refresh,
+// follower and listener threads all count. Exits with 1 when a figure is over budget (mvn verify fails)
+//   java -cp target/benchmarks.jar com.benchmarks.AllocationCheck [baseRows]   (default 20000)
+public final class AllocationCheck {
+    private static final String BUDGETS = "/allocation-budgets.properties";
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+    private static final int DEFAULT_BASE_ROWS = 20000;
+    private static final int SMALL_DELTA = 100;
+    private static final int LARGE_DELTA = 1000;
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int baseRows;
+    private final Path workDir;
+    private final WorkloadGenerator generator = new WorkloadGenerator(Fixtures.SEED, LocalDate.now(), 60, 0.02, 0.2);
+    private int dropped;
+
+    private AllocationCheck(int baseRows) throws IOException {
+        this.baseRows = baseRows;
+        this.workDir = Files.createTempDirectory("dashboard-allocation");
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int baseRows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BASE_ROWS;
+        Properties budgets = new Properties();
+        try (InputStream in = AllocationCheck.class.getResourceAsStream(BUDGETS)) {
+            budgets.load(in);
+        }
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM does not count allocation per thread; nothing to check");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        AllocationCheck check = new AllocationCheck(baseRows);
+        check.configure();
+        long noChange = check.noChangeRefresh();
+        long[] deltas = check.deltaRefreshes();
+        long small = deltas[0];
+        long large = deltas[1];
+        long perDeltaRow = (large - small) / (LARGE_DELTA - SMALL_DELTA);
+        long fixed = Math.max(0, small - noChange - perDeltaRow * SMALL_DELTA);
+
+        System.out.printf(Locale.ENGLISH, "%-26s %14s %12s%n", "refresh", "bytes", "budget");
+        List<String> failures = new ArrayList<>();
+        check(failures, budgets, "noChange.bytes", "no change", noChange);
+        check(failures, budgets, baseRows == DEFAULT_BASE_ROWS ? "delta.small.bytes" : null,
+                "delta of " + SMALL_DELTA, small);
+        check(failures, budgets, null, "delta of " + LARGE_DELTA, large);
+        check(failures, budgets, "delta.perRow.bytes", "per delta row", perDeltaRow);
+        check(failures, budgets, null, "fixed", fixed);
+        check(failures, "delta of " + SMALL_DELTA + " - no change", small - noChange, baseRows == DEFAULT_BASE_ROWS
+                ? SMALL_DELTA * Long.parseLong(budgets.getProperty("delta.perRow.bytes"))
+                        + Long.parseLong(budgets.getProperty("delta.fixed.bytes"))
+                : null);
+
+        if (!failures.isEmpty()) {
+            System.err.println("Allocation over budget:");
+            failures.forEach(failure -> System.err.println("  " + failure));
+            System.exit(1);
+        }
+        System.out.println("All refreshes within budget");
+        System.exit(0);
+    }
+
+    // The stores of the pipeline run too, but in the work directory; refreshes every second without jitter
+    private void configure() {
+        System.setProperty("dashboard.cache.dir", workDir.resolve("cache").toString());
+        System.setProperty("dashboard.history.dir", workDir.resolve("history").toString());
+        System.setProperty("dashboard.changelog.file", workDir.resolve("changes.log").toString());
+        System.setProperty("dashboard.refresh.initialSeconds", "1");
+        System.setProperty("dashboard.refresh.minSeconds", "1");
+        System.setProperty("dashboard.refresh.maxSeconds", "1");
+        System.setProperty("dashboard.refresh.jitter", "0");
+        // Refreshes are counted through the timings the service keeps
+        System.setProperty("dashboard.diagnostics.refreshHistory", "1000");
+    }
+
+    // Mean bytes of a scheduled refresh that finds the file unchanged
+    private long noChangeRefresh() throws IOException, InterruptedException {
+        Path file = workDir.resolve("data.csv");
+        generator.write(file, baseRows);
+        DataService service = new DataService(DashboardConfig.get(), TaskSources.forPath(file.toString()), null);
+        service.start();
+        try {
+            awaitRefreshes(service, 1 + WARMUP);
+            long before = allocated();
+            awaitRefreshes(service, service.getRefreshTimings().size() + ROUNDS);
+            return (allocated() - before) / ROUNDS;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    // Mean bytes of a follow mode refresh that merges one new file into the base rows, for a small and a large
+    // file; the sizes take turns so both see the same (slowly growing) number of rows already held
+    private long[] deltaRefreshes() throws IOException, InterruptedException {
+        Path drop = Files.createDirectories(workDir.resolve("drop"));
+        drop(drop, baseRows);
+        DataService service = new DataService(DashboardConfig.get(), new DirectoryFollower(drop, 100), null);
+        service.start();
+        try {
+            awaitRows(service, baseRows);
+            for (int i = 0; i < WARMUP; i++) {
+                dropAndAwait(service, drop, SMALL_DELTA);
+                dropAndAwait(service, drop, LARGE_DELTA);
+            }
+            long small = 0;
+            long large = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                small += measureDrop(service, drop, SMALL_DELTA);
+                large += measureDrop(service, drop, LARGE_DELTA);
+            }
+            return new long[] {small / ROUNDS, large / ROUNDS};
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private long measureDrop(DataService service, Path drop, int rows) throws IOException, InterruptedException {
+        long before = allocated();
+        dropAndAwait(service, drop, rows);
+        return allocated() - before;
+    }
+
+    private void dropAndAwait(DataService service, Path drop, int rows) throws IOException, InterruptedException {
+        int expected = service.getRefreshTimings().size() + 1;
+        drop(drop, rows);
+        awaitRefreshes(service, expected);
+    }
+
+    // A new export file in the drop directory, written beside it and moved in complete
+    private void drop(Path drop, int rows) throws IOException {
+        Path partial = workDir.resolve("partial.csv");
+        generator.write(partial, rows);
+        Files.move(partial, drop.resolve("export-" + (dropped++) + ".csv"), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Wait (without allocating much on this thread, which is not counted anyway) until that many refreshes ran
+    private static void awaitRefreshes(DataService service, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (service.getRefreshTimings().size() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("No refresh within " + TIMEOUT_MILLIS / 1000 + " s");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    // Wait until the follower's replay of the drop directory is published
+    private static void awaitRows(DataService service, int rows) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (service.getSnapshot().getTaskList().size() < rows) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("No replay within " + TIMEOUT_MILLIS / 1000 + " s");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    // Bytes allocated so far by every live thread except this one
+    private static long allocated() {
+        long self = Thread.currentThread().getId();
+        long total = 0;
+        for (long id : THREADS.getAllThreadIds()) {
+            if (id != self) {
+                total += Math.max(0, THREADS.getThreadAllocatedBytes(id));
+            }
+        }
+        return total;
+    }
+
+    private static void check(List<String> failures, Properties budgets, String key, String label, long bytes) {
+        String budget = key == null ? null : budgets.getProperty(key);
+        check(failures, label, bytes, budget == null ? null : Long.parseLong(budget));
+    }
+
+    private static void check(List<String> failures, String label, long bytes, Long budget) {
+        System.out.printf(Locale.ENGLISH, "%-26s %14d %12s%n", label, bytes, budget == null ? "-" : budget);
+        if (budget != null && bytes > budget) {
+            failures.add(label + ": " + bytes + " bytes, budget " + budget);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.management.ManagementFactory;
+
+// Bytes the benchmark thread allocated per operation of the iteration ("bytesPerOp" in the results), so budgets can
+// be read off every run without -prof gc. Needs a HotSpot-style JVM that counts allocation per thread; 0 otherwise
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class AllocationCounter {
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    public long bytesPerOp;
+
+    private long bytes;
+    private long operations;
+    private long start;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        bytesPerOp = 0;
+        bytes = 0;
+        operations = 0;
+    }
+
+    void begin() {
+        start = allocated();
+    }
+
+    void end() {
+        bytes += allocated() - start;
+        operations++;
+        bytesPerOp = bytes / operations;
+    }
+
+    private static long allocated() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        if (!hotspot.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        hotspot.setThreadAllocatedMemoryEnabled(true);
+        return hotspot;
+    }
+}
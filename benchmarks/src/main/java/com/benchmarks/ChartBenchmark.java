@@ -0,0 +1,84 @@
+package com.benchmarks;
+
+import com.ui.DashboardModels;
+import com.utils.DashboardSnapshot;
+import com.utils.ExcelDataReader;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The chart work of every refresh and filter change, headless: the line and bar datasets and the working weeks
+// of the month behind the monthly view, for each view, all types or one type, with or without a selected date
+// Without a date the charts cover the weeks up to today, which the generated data (early 2025) does not reach,
+// so those results are the cost of an empty window; with a date they cover a full one
+// Besides the latency every result carries "bytesPerOp" (see AllocationCounter)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class ChartBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"weekly", "monthly"})
+    public String view;
+
+    @Param({DashboardSnapshot.ALL_TYPES, "EColl - Export Collection"})
+    public String type;
+
+    // "none" for no selected date
+    @Param({"none", "2025-02-14"})
+    public String date;
+
+    private DashboardSnapshot snapshot;
+    private String selectedDate;
+    private boolean weekly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = Fixtures.snapshot(rows);
+        selectedDate = "none".equals(date) ? null : date;
+        weekly = "weekly".equals(view);
+    }
+
+    @Benchmark
+    public DefaultCategoryDataset lineDataset(AllocationCounter allocation) {
+        allocation.begin();
+        DefaultCategoryDataset dataset = DashboardModels.lineDataset(snapshot, type, selectedDate, weekly);
+        allocation.end();
+        return dataset;
+    }
+
+    @Benchmark
+    public DefaultCategoryDataset barDataset(AllocationCounter allocation) {
+        allocation.begin();
+        DefaultCategoryDataset dataset = DashboardModels.barDataset(snapshot, type, selectedDate, weekly);
+        allocation.end();
+        return dataset;
+    }
+
+    // Only depends on the date; it is repeated for the other parameters to keep one class per screen area
+    @Benchmark
+    public List<ExcelDataReader.WeekData> monthlyWeekData(AllocationCounter allocation) {
+        allocation.begin();
+        List<ExcelDataReader.WeekData> weeks = snapshot.getMonthlyWeekData(selectedDate);
+        allocation.end();
+        return weeks;
+    }
+}
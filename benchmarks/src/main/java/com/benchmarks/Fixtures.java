@@ -0,0 +1,60 @@
+package com.benchmarks;
+
+import com.source.ExcelTaskSource;
+import com.tools.WorkloadGenerator;
+import com.utils.DashboardSnapshot;
+import com.utils.ExcelDataReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+
+// Generated input for the benchmarks, from WorkloadGenerator with a fixed seed and end date. The rows only depend
+// on the row count, so every run and every commit measures the same data; workbooks are written once into the
+// fixture directory and reused by later runs
+final class Fixtures {
+    static final long SEED = 20250201L;
+
+    // Override with -Dbench.fixtures=DIR to share fixtures between checkouts
+    private static final Path DIRECTORY = Paths.get(System.getProperty("bench.fixtures", "target/fixtures"));
+
+    // Last business day of the generated data and how many business days it covers (January to March 2025)
+    private static final LocalDate END = LocalDate.of(2025, 3, 31);
+    private static final int DAYS = 60;
+
+    private Fixtures() {
+    }
+
+    // Path of the xlsx fixture with the given number of rows, written on first use
+    static synchronized Path workbook(int rows) throws IOException {
+        Path file = DIRECTORY.resolve("workload-" + rows + "-" + SEED + ".xlsx");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Files.createDirectories(DIRECTORY);
+        Path partial = DIRECTORY.resolve("partial-" + file.getFileName());
+        generator().write(partial, rows);
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    // The same rows as workbook(rows), already parsed
+    static List<ExcelDataReader.ExcelModel> rows(int rows) {
+        return generator().next(rows);
+    }
+
+    // A snapshot of the same rows, as the dashboard renders it
+    static DashboardSnapshot snapshot(int rows) {
+        ExcelDataReader reader = new ExcelDataReader(new ExcelTaskSource("generated-" + rows));
+        reader.mergeRows(rows(rows));
+        return DashboardSnapshot.of(reader);
+    }
+
+    private static WorkloadGenerator generator() {
+        return new WorkloadGenerator(SEED, END, DAYS, 0.02, 0.2);
+    }
+}
@@ -0,0 +1,113 @@
+package com.benchmarks;
+
+import com.source.ExcelTaskSource;
+import com.utils.DashboardSnapshot;
+import com.utils.ExcelDataReader;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+// Retained heap of the task rows and the aggregate maps, measured with JOL on generated data of several sizes,
+// against the budgets in footprint-budgets.properties. Prints one line per structure and size so the numbers can
+// be tracked from build to build, and exits with 1 when a structure is over its budget (mvn verify fails)
+//   java -cp target/benchmarks.jar com.benchmarks.FootprintCheck [rows,rows,...]   (default 10000,50000)
+// Structures that grow with the rows are budgeted per row, the aggregate maps (per type and per day) in total;
+// the class breakdown of the rows at the first size shows where the bytes of a row go
+public final class FootprintCheck {
+    private static final String BUDGETS = "/footprint-budgets.properties";
+
+    private FootprintCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String sizes = args.length > 0 ? args[0] : "10000,50000";
+        Properties budgets = new Properties();
+        try (InputStream in = FootprintCheck.class.getResourceAsStream(BUDGETS)) {
+            budgets.load(in);
+        }
+
+        System.out.println(VM.current().details());
+        System.out.printf(Locale.ENGLISH, "%-16s %8s %14s %10s %10s%n", "structure", "rows", "bytes", "per row", "budget");
+        System.out.printf(Locale.ENGLISH, "%-16s %8s %14d %10s %10s%n", "TaskData", "-",
+                ClassLayout.parseClass(ExcelDataReader.TaskData.class).instanceSize(), "-", "-");
+
+        List<String> failures = new ArrayList<>();
+        String classes = null;
+        for (String size : sizes.split(",")) {
+            int rows = Integer.parseInt(size.trim());
+            ExcelDataReader reader = new ExcelDataReader(new ExcelTaskSource("generated-" + rows));
+            reader.mergeRows(Fixtures.rows(rows));
+            for (Map.Entry<String, Long> entry : measure(reader).entrySet()) {
+                check(entry.getKey(), rows, entry.getValue(), budgets, failures);
+            }
+            if (classes == null) {
+                classes = "Rows by class at " + rows + " rows:\n"
+                        + GraphLayout.parseInstance(reader.getTaskList()).toFootprint();
+            }
+        }
+        System.out.println();
+        System.out.println(classes);
+
+        if (!failures.isEmpty()) {
+            System.err.println("Footprint over budget:");
+            failures.forEach(failure -> System.err.println("  " + failure));
+            System.exit(1);
+        }
+        System.out.println("All structures within budget");
+    }
+
+    // Retained bytes per structure; a structure's size excludes what an earlier one already counted,
+    // so the rows are counted once (in taskList) and "other" is what the reader holds besides the parts
+    // A part's size is how much a walk over several roots grows when the part is added (an object reached twice
+    // counts once); GraphLayout.subtract() matches objects by address, which a GC between two walks can change
+    private static Map<String, Long> measure(ExcelDataReader reader) {
+        DashboardSnapshot snapshot = DashboardSnapshot.of(reader);
+
+        long taskList = size(reader.getTaskList());
+        long dailyStats = size(reader.getAllDailyStats());
+        long parts = size(reader.getTaskList(), reader.getDocumentStats(), reader.getAllDailyStats(),
+                reader.getTatHistograms(), reader.getDayCounts());
+
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        sizes.put("taskList", taskList);
+        sizes.put("documentStats", size(reader.getDocumentStats()));
+        sizes.put("dailyStats", dailyStats);
+        // The date keys are shared with dailyStats
+        sizes.put("tatHistograms", size(reader.getAllDailyStats(), reader.getTatHistograms()) - dailyStats);
+        sizes.put("dayCounts", size(reader.getAllDailyStats(), reader.getDayCounts()) - dailyStats);
+        sizes.put("reader.other", size(reader) - parts);
+        sizes.put("snapshot", size(snapshot, reader.getTaskList()) - taskList);
+        return sizes;
+    }
+
+    private static long size(Object... roots) {
+        return GraphLayout.parseInstance(roots).totalSize();
+    }
+
+    // <structure>.perRow budgets the bytes per row, <structure>.bytes the total
+    private static void check(String structure, int rows, long bytes, Properties budgets, List<String> failures) {
+        double perRow = (double) bytes / rows;
+        String perRowBudget = budgets.getProperty(structure + ".perRow");
+        String totalBudget = budgets.getProperty(structure + ".bytes");
+        String budget = perRowBudget != null ? perRowBudget + "/row" : totalBudget != null ? totalBudget : "-";
+        System.out.printf(Locale.ENGLISH, "%-16s %8d %14d %10.1f %10s%n", structure, rows, bytes, perRow, budget);
+
+        if (perRowBudget != null && perRow > Double.parseDouble(perRowBudget)) {
+            failures.add(String.format(Locale.ENGLISH, "%s at %d rows: %.1f bytes per row, budget %s",
+                    structure, rows, perRow, perRowBudget));
+        }
+        if (totalBudget != null && bytes > Long.parseLong(totalBudget)) {
+            failures.add(String.format(Locale.ENGLISH, "%s at %d rows: %d bytes, budget %s",
+                    structure, rows, bytes, totalBudget));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+// Highest heap use seen during an operation of the iteration, in MB ("peakHeapMb" in the results)
+// Garbage counts until it is collected; heap pools reach their peaks at different moments, so the sum is an upper bound
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class HeapPeak {
+    public long peakHeapMb;
+
+    private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+    public HeapPeak() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        peakHeapMb = 0;
+    }
+
+    void begin() {
+        for (MemoryPoolMXBean pool : pools) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    void end() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        peakHeapMb = Math.max(peakHeapMb, peak >> 20);
+    }
+}
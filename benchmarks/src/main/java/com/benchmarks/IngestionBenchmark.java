@@ -0,0 +1,52 @@
+package com.benchmarks;
+
+import com.source.ExcelTaskSource;
+import com.utils.ExcelDataReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// End to end xlsx ingestion, ExcelDataReader.readExcelData() on a generated workbook of 10k, 100k and 1M rows
+// Besides ops/s each result carries "rows" (rows ingested per second) and "peakHeapMb" (highest heap use during an
+// operation, garbage included). Run with -prof gc for the allocation rate (gc.alloc.rate, gc.alloc.rate.norm)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+// A fixed heap so peak heap and GC figures are comparable between runs
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class IngestionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private String workbook;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workbook = Fixtures.workbook(rows).toString();
+    }
+
+    @Benchmark
+    public ExcelDataReader readWorkbook(RowCounter counter, HeapPeak heap) {
+        heap.begin();
+        ExcelDataReader reader = new ExcelDataReader(new ExcelTaskSource(workbook));
+        reader.readExcelData();
+        heap.end();
+        counter.rows += reader.getTaskList().size();
+        return reader;
+    }
+}
@@ -0,0 +1,58 @@
+package com.benchmarks;
+
+import com.ui.DashboardModels;
+import com.utils.DashboardSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.concurrent.TimeUnit;
+
+// The task table model the dashboard builds on every refresh and filter change (updateDataTable), headless,
+// for all types or one type, with or without a selected date. The view mode does not change the table
+// Besides the latency every result carries "bytesPerOp" (see AllocationCounter)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class TableBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({DashboardSnapshot.ALL_TYPES, "EColl - Export Collection"})
+    public String type;
+
+    // "none" for no selected date
+    @Param({"none", "2025-02-14"})
+    public String date;
+
+    private DashboardSnapshot snapshot;
+    private String selectedDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = Fixtures.snapshot(rows);
+        selectedDate = "none".equals(date) ? null : date;
+    }
+
+    @Benchmark
+    public DefaultTableModel taskTable(AllocationCounter allocation) {
+        allocation.begin();
+        DefaultTableModel model = DashboardModels.taskTableModel(snapshot, type, selectedDate);
+        allocation.end();
+        return model;
+    }
+}
@@ -0,0 +1,56 @@
+package com.metrics;
+
+import jdk.jfr.FlightRecorder;
+
+// Creates and commits the PhaseEvents; loaded by name from Phases only when events are on
+final class JfrRecorder implements Phases.Recorder {
+    // Load and register every event type up front, on one thread, rather than on the parallel parse threads
+    JfrRecorder() {
+        FlightRecorder.register(PhaseEvent.Ingest.class);
+        FlightRecorder.register(PhaseEvent.Aggregate.class);
+        FlightRecorder.register(PhaseEvent.LineDataset.class);
+        FlightRecorder.register(PhaseEvent.BarDataset.class);
+        FlightRecorder.register(PhaseEvent.Table.class);
+        FlightRecorder.register(PhaseEvent.Swap.class);
+    }
+
+    @Override
+    public Object begin(Phases.Phase phase) {
+        PhaseEvent event = create(phase);
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(Object handle, long rows, String documentType, String view, long version) {
+        PhaseEvent event = (PhaseEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.documentType = documentType;
+            event.view = view;
+            event.version = version;
+            event.commit();
+        }
+    }
+
+    private static PhaseEvent create(Phases.Phase phase) {
+        switch (phase) {
+            case INGEST:
+                return new PhaseEvent.Ingest();
+            case AGGREGATE:
+                return new PhaseEvent.Aggregate();
+            case LINE_DATASET:
+                return new PhaseEvent.LineDataset();
+            case BAR_DATASET:
+                return new PhaseEvent.BarDataset();
+            case TABLE:
+                return new PhaseEvent.Table();
+            default:
+                return new PhaseEvent.Swap();
+        }
+    }
+}
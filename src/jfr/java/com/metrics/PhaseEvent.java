@@ -0,0 +1,66 @@
+package com.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// The Flight Recorder events of Phases: one event type per phase, all with the same fields
+// Compiled apart from the main sources (src/jfr/java, profile jfr) and only loaded when Phases.ENABLED is true,
+// so the rest of the code never refers to jdk.jfr
+// The events are created and committed from JfrRecorder: the recorder rewrites event classes as they load,
+// and an event class whose own code creates its subclasses fails that rewrite
+@Category("Dashboard")
+abstract class PhaseEvent extends Event {
+    @Label("Rows")
+    @Description("Rows parsed, snapshot rows, dataset values or table rows, depending on the phase")
+    long rows;
+
+    @Label("Document Type")
+    String documentType;
+
+    @Label("View")
+    @Description("weekly, monthly or trend")
+    String view;
+
+    @Label("Data Version")
+    @Description("Version of the snapshot shown, -1 before it exists")
+    long version;
+
+    @Name("com.dashboard.Ingest")
+    @Label("Ingest")
+    @Description("Reading the source into the aggregates")
+    static final class Ingest extends PhaseEvent {
+    }
+
+    @Name("com.dashboard.Aggregate")
+    @Label("Aggregate")
+    @Description("Building the snapshot from the aggregates")
+    static final class Aggregate extends PhaseEvent {
+    }
+
+    @Name("com.dashboard.LineDataset")
+    @Label("Line Chart Dataset")
+    @Description("Building the data of the completed tasks chart")
+    static final class LineDataset extends PhaseEvent {
+    }
+
+    @Name("com.dashboard.BarDataset")
+    @Label("Bar Chart Dataset")
+    @Description("Building the data of the status distribution chart")
+    static final class BarDataset extends PhaseEvent {
+    }
+
+    @Name("com.dashboard.Table")
+    @Label("Table Model")
+    @Description("Building the task table model")
+    static final class Table extends PhaseEvent {
+    }
+
+    @Name("com.dashboard.Swap")
+    @Label("EDT Swap")
+    @Description("From a published snapshot to the redrawn screen, including the wait for the EDT")
+    static final class Swap extends PhaseEvent {
+    }
+}
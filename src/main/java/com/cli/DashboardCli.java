@@ -0,0 +1,353 @@
+package com.cli;
+
+import com.source.TaskSources;
+import com.store.SnapshotCache;
+import com.utils.DashboardConfig;
+import com.utils.DashboardSeries;
+import com.utils.DashboardSnapshot;
+import com.utils.DocumentTypes;
+import com.utils.ExcelDataReader;
+import com.utils.JsonWriter;
+import com.utils.WorkbookFederation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Headless batch mode for cron jobs: loads the workbooks, aggregates them like the dashboard and writes the result
+//   java -cp dashboard.jar com.cli.DashboardCli [options] [workbook or glob ...]
+// Without workbooks the source configured in dashboard.properties is read. Several workbooks are parsed in parallel
+// (one per core, or --threads) through the same federation as the window; no AWT class is ever loaded
+public class DashboardCli {
+    private static final String USAGE = String.join("\n",
+            "Usage: DashboardCli [options] [workbook or glob ...]",
+            "  --from yyyy-MM-dd     first day counted in the summary and breaches (default: no limit)",
+            "  --to yyyy-MM-dd       last day counted in the summary and breaches (default: no limit)",
+            "  --type TYPE[,TYPE]    document types to report (default: all types combined)",
+            "  --date yyyy-MM-dd     day the weekly and monthly series end at (default: --to, or today)",
+            "  --format json|csv     output format (default: json)",
+            "  --out FILE            write to a file instead of standard output",
+            "  --threads N           workbooks parsed at the same time (default: number of cores)");
+
+    private final Options options;
+
+    DashboardCli(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        try {
+            new DashboardCli(options).run();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    void run() throws IOException {
+        DashboardSnapshot snapshot = DashboardSnapshot.of(load());
+        List<ExcelDataReader.TaskData> rows = rowsInRange(snapshot);
+
+        // The per type aggregations are independent, one per core
+        List<TypeReport> reports = options.types.parallelStream()
+                .map(type -> report(snapshot, rows, type))
+                .collect(Collectors.toList());
+
+        OutputStream stream = options.out != null ? Files.newOutputStream(Paths.get(options.out)) : System.out;
+        try (Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+            if ("csv".equals(options.format)) {
+                writeCsv(new PrintWriter(out), reports);
+            } else {
+                out.write(toJson(snapshot, reports));
+                out.write('\n');
+            }
+        }
+    }
+
+    private ExcelDataReader load() {
+        DashboardConfig config = DashboardConfig.get();
+        if (options.workbooks.isEmpty()) {
+            ExcelDataReader reader = new ExcelDataReader(TaskSources.fromConfig(config));
+            reader.readExcelData();
+            return reader;
+        }
+        WorkbookFederation federation = new WorkbookFederation(options.workbooks,
+                config.getString("source.branchPattern", WorkbookFederation.DEFAULT_BRANCH_PATTERN),
+                options.threads, SnapshotCache.fromConfig(config));
+        try {
+            federation.refresh();
+            // A report with missing workbooks would look like a quiet day, so it is not written at all
+            if (federation.getLastFiles().isEmpty()) {
+                throw new IllegalArgumentException("No workbook matches " + options.workbooks);
+            }
+            if (!federation.getLastFailures().isEmpty()) {
+                throw new IllegalStateException("Cannot load " + federation.getLastFailures());
+            }
+            return federation.getReader(WorkbookFederation.ALL_BRANCHES);
+        } finally {
+            federation.shutdown();
+        }
+    }
+
+    private List<ExcelDataReader.TaskData> rowsInRange(DashboardSnapshot snapshot) {
+        if (options.from == null && options.to == null) {
+            return snapshot.getTaskList();
+        }
+        return snapshot.getTasksByDateRange(options.from != null ? options.from : LocalDate.MIN,
+                options.to != null ? options.to : LocalDate.MAX);
+    }
+
+    private TypeReport report(DashboardSnapshot snapshot, List<ExcelDataReader.TaskData> rows, String type) {
+        TypeReport report = new TypeReport(type);
+        boolean allTypes = DashboardSnapshot.ALL_TYPES.equals(type);
+        for (ExcelDataReader.TaskData task : rows) {
+            if (!allTypes && !type.equals(task.getDocumentType())) {
+                continue;
+            }
+            report.total++;
+            String status = task.getStatus() == null ? "" : task.getStatus().toUpperCase(Locale.ROOT);
+            if ("PENDING".equals(status)) {
+                report.ongoing++;
+            } else if ("LODGE".equals(status)) {
+                report.completed++;
+                // Each task is held against the target TAT of its own document type, as in the status cards
+                if (ExcelDataReader.isWithinTargetTAT(task.getTat(), task.getDocumentType())) {
+                    report.withinTat++;
+                } else {
+                    report.overTat++;
+                    report.breaches.add(task);
+                }
+            }
+        }
+        String date = options.date != null ? options.date.toString() : null;
+        // Completed tasks in both views (the line chart), the status distribution per work day (the weekly bar chart)
+        report.weeklyCompleted = DashboardSeries.completedSeries(snapshot, type, date, true);
+        report.monthlyCompleted = DashboardSeries.completedSeries(snapshot, type, date, false);
+        report.weeklyStatus = DashboardSeries.statusSeries(snapshot, type, date, true);
+        return report;
+    }
+
+    private String toJson(DashboardSnapshot snapshot, List<TypeReport> reports) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .name("generatedAt").value(snapshot.getCreatedAt())
+                .name("from").value(options.from != null ? options.from.toString() : null)
+                .name("to").value(options.to != null ? options.to.toString() : null)
+                .name("rows").value(snapshot.getTaskList().size())
+                .name("types").beginArray();
+        for (TypeReport report : reports) {
+            json.beginObject()
+                    .name("type").value(report.type)
+                    .name("summary").beginObject()
+                    .name("total").value(report.total)
+                    .name("ongoing").value(report.ongoing)
+                    .name("completed").value(report.completed)
+                    .name("withinTat").value(report.withinTat)
+                    .name("overTat").value(report.overTat)
+                    .endObject();
+            writeSeries(json.name("weeklyCompleted"), report.weeklyCompleted);
+            writeSeries(json.name("monthlyCompleted"), report.monthlyCompleted);
+            writeSeries(json.name("weeklyStatus"), report.weeklyStatus);
+            json.name("breaches").beginArray();
+            for (ExcelDataReader.TaskData task : report.breaches) {
+                json.beginObject()
+                        .name("documentSerial").value(task.getDocumentSerial())
+                        .name("referenceNumber").value(task.getReferenceNumber())
+                        .name("documentType").value(task.getDocumentType())
+                        .name("date").value(task.getDate())
+                        .name("tat").value(task.getTat())
+                        .name("targetHours").value(DocumentTypes.getDocumentTatHours(task.getDocumentType()))
+                        .name("authorizedBy").value(task.getHandler())
+                        .endObject();
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private static void writeSeries(JsonWriter json, Map<String, Map<String, Long>> series) {
+        json.beginObject();
+        for (Map.Entry<String, Map<String, Long>> entry : series.entrySet()) {
+            json.name(entry.getKey()).beginObject();
+            for (Map.Entry<String, Long> point : entry.getValue().entrySet()) {
+                json.name(point.getKey()).value(point.getValue());
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    // Three tables separated by an empty line: summary, series (one row per point) and breaches
+    private static void writeCsv(PrintWriter out, List<TypeReport> reports) {
+        out.println("type,total,ongoing,completed,withinTat,overTat");
+        for (TypeReport report : reports) {
+            out.println(csv(report.type, report.total, report.ongoing, report.completed, report.withinTat,
+                    report.overTat));
+        }
+
+        out.println();
+        out.println("type,view,series,category,value");
+        for (TypeReport report : reports) {
+            writeSeriesCsv(out, report.type, "weeklyCompleted", report.weeklyCompleted);
+            writeSeriesCsv(out, report.type, "monthlyCompleted", report.monthlyCompleted);
+            writeSeriesCsv(out, report.type, "weeklyStatus", report.weeklyStatus);
+        }
+
+        out.println();
+        out.println("type,documentSerial,referenceNumber,documentType,date,tat,targetHours,authorizedBy");
+        for (TypeReport report : reports) {
+            for (ExcelDataReader.TaskData task : report.breaches) {
+                out.println(csv(report.type, task.getDocumentSerial(), task.getReferenceNumber(),
+                        task.getDocumentType(), task.getDate(), task.getTat(),
+                        DocumentTypes.getDocumentTatHours(task.getDocumentType()), task.getHandler()));
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeSeriesCsv(PrintWriter out, String type, String view,
+                                       Map<String, Map<String, Long>> series) {
+        series.forEach((name, points) -> points.forEach((category, value) ->
+                out.println(csv(type, view, name, category, value))));
+    }
+
+    // One CSV record; fields with a comma, quote or line break are quoted
+    private static String csv(Object... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String field = fields[i] == null ? "" : fields[i].toString();
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0) {
+                line.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(field);
+            }
+        }
+        return line.toString();
+    }
+
+    // Figures of one document type (or all types combined)
+    private static class TypeReport {
+        private final String type;
+        private int total;
+        private int ongoing;
+        private int completed;
+        private int withinTat;
+        private int overTat;
+        private final List<ExcelDataReader.TaskData> breaches = new ArrayList<>();
+        private Map<String, Map<String, Long>> weeklyCompleted;
+        private Map<String, Map<String, Long>> monthlyCompleted;
+        private Map<String, Map<String, Long>> weeklyStatus;
+
+        TypeReport(String type) {
+            this.type = type;
+        }
+    }
+
+    static class Options {
+        private final List<String> workbooks = new ArrayList<>();
+        private List<String> types = Collections.singletonList(DashboardSnapshot.ALL_TYPES);
+        private LocalDate from;
+        private LocalDate to;
+        private LocalDate date;
+        private String format = "json";
+        private String out;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private boolean help;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--from":
+                        options.from = LocalDate.parse(value(args, ++i, arg));
+                        break;
+                    case "--to":
+                        options.to = LocalDate.parse(value(args, ++i, arg));
+                        break;
+                    case "--date":
+                        options.date = LocalDate.parse(value(args, ++i, arg));
+                        break;
+                    case "--type":
+                        options.types = Arrays.stream(value(args, ++i, arg).split(","))
+                                .map(String::trim)
+                                .filter(type -> !type.isEmpty())
+                                .map(type -> DashboardSnapshot.ALL_TYPES.equalsIgnoreCase(type)
+                                        ? DashboardSnapshot.ALL_TYPES : type)
+                                .collect(Collectors.toList());
+                        break;
+                    case "--format":
+                        options.format = value(args, ++i, arg).toLowerCase(Locale.ROOT);
+                        if (!"json".equals(options.format) && !"csv".equals(options.format)) {
+                            throw new IllegalArgumentException("--format must be json or csv");
+                        }
+                        break;
+                    case "--out":
+                        options.out = value(args, ++i, arg);
+                        break;
+                    case "--threads":
+                        try {
+                            options.threads = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("--threads must be a number");
+                        }
+                        break;
+                    case "-h":
+                    case "--help":
+                        options.help = true;
+                        break;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option " + arg);
+                        }
+                        options.workbooks.add(arg);
+                }
+            }
+            if (options.from != null && options.to != null && options.from.isAfter(options.to)) {
+                throw new IllegalArgumentException("--from is after --to");
+            }
+            if (options.date == null) {
+                options.date = options.to;
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            return args[index];
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.metrics;
+
+import com.utils.DashboardConfig;
+import com.utils.JsonWriter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide registry of the dashboard's runtime metrics: counters, gauges and latency histograms, looked up
+// by name. Callers keep the metric in a field and record into it, which never allocates; the registry is only
+// involved when the metric is created
+// With metrics.jmx (default true) every metric is also published as an MBean under com.dashboard, so JConsole
+// or any JMX scraper can read them; /api/metrics of the HTTP API returns the same values as JSON
+public final class Metrics {
+    private static final String DOMAIN = "com.dashboard";
+
+    private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private static volatile boolean jmx;
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> register("Counter", key, new Counter(key), CounterMBean.class));
+    }
+
+    public static Gauge gauge(String name) {
+        return GAUGES.computeIfAbsent(name, key -> register("Gauge", key, new Gauge(key), GaugeMBean.class));
+    }
+
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name,
+                key -> register("Histogram", key, new Histogram(key), HistogramMBean.class));
+    }
+
+    // metrics.jmx (true): publish the metrics created so far, and every later one, on the platform MBean server
+    public static synchronized void exportFromConfig(DashboardConfig config) {
+        if (jmx || !config.getBoolean("metrics.jmx", true)) {
+            return;
+        }
+        jmx = true;
+        COUNTERS.forEach((name, counter) -> export("Counter", name, counter, CounterMBean.class));
+        GAUGES.forEach((name, gauge) -> export("Gauge", name, gauge, GaugeMBean.class));
+        HISTOGRAMS.forEach((name, histogram) -> export("Histogram", name, histogram, HistogramMBean.class));
+    }
+
+    // Every metric as one JSON object: name -> value for counters and gauges, name -> summary for histograms
+    public static String toJson() {
+        JsonWriter json = new JsonWriter().beginObject();
+        json.name("counters").beginObject();
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            json.name(entry.getKey()).value(entry.getValue().getCount());
+        }
+        json.endObject().name("gauges").beginObject();
+        for (Map.Entry<String, Gauge> entry : new TreeMap<>(GAUGES).entrySet()) {
+            json.name(entry.getKey()).value(entry.getValue().getValue());
+        }
+        json.endObject().name("histograms").beginObject();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram histogram = entry.getValue();
+            json.name(entry.getKey()).beginObject()
+                    .name("count").value(histogram.getCount())
+                    .name("mean").value(Math.round(histogram.getMean()))
+                    .name("p50").value(histogram.getP50())
+                    .name("p90").value(histogram.getP90())
+                    .name("p99").value(histogram.getP99())
+                    .name("p999").value(histogram.getP999())
+                    .name("max").value(histogram.getMax())
+                    .endObject();
+        }
+        return json.endObject().endObject().toString();
+    }
+
+    private static <T> T register(String type, String name, T metric, Class<? super T> view) {
+        if (jmx) {
+            export(type, name, metric, view);
+        }
+        return metric;
+    }
+
+    private static <T> void export(String type, String name, T metric, Class<? super T> view) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(new StandardMBean(metric, cast(view)), objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not publish metric " + name + " over JMX: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> cast(Class<? super T> view) {
+        return (Class<T>) view;
+    }
+
+    // JMX views of the metrics
+    public interface CounterMBean {
+        long getCount();
+    }
+
+    public interface GaugeMBean {
+        long getValue();
+    }
+
+    public interface HistogramMBean {
+        long getCount();
+
+        double getMean();
+
+        long getMax();
+
+        long getP50();
+
+        long getP90();
+
+        long getP99();
+
+        long getP999();
+
+        void reset();
+    }
+
+    // A count that only goes up (rows parsed, refreshes published)
+    public static final class Counter implements CounterMBean {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long delta) {
+            count.add(delta);
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    // The last value of something (rows of the published snapshot, parse rate)
+    public static final class Gauge implements GaugeMBean {
+        private final String name;
+        private volatile long value;
+
+        Gauge(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void set(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public long getValue() {
+            return value;
+        }
+    }
+}
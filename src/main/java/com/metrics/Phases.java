@@ -0,0 +1,68 @@
+package com.metrics;
+
+import com.utils.DashboardConfig;
+
+// Flight Recorder events around the phases between a source change and the pixels on the wall screen, so a
+// recording of a stuttering screen shows which phase was slow and with how much data:
+//   Ingest     readExcelData(): rows parsed
+//   Aggregate  building the snapshot from the reader: rows and snapshot version
+//   LineDataset / BarDataset
+//              a chart dataset: values in the dataset, document type, view (weekly, monthly, trend), version
+//   Table      the task table model: table rows, document type, version
+//   Swap       from a published snapshot to the redrawn screen, EDT queueing included: rows and version
+// Off unless jfr.events=true; then events are recorded whenever a recording is running (for example
+// -XX:StartFlightRecording or JMC). While off, begin() returns null and end() returns right away, and the
+// JFR classes are never loaded, so the dashboard still runs on a JVM without jdk.jfr
+// The event classes live in src/jfr/java and are compiled by the jfr profile (build JDK 11 or later), so the main
+// sources build on any JDK 8; a build without them runs with the events off
+public final class Phases {
+    public enum Phase {
+        INGEST, AGGREGATE, LINE_DATASET, BAR_DATASET, TABLE, SWAP
+    }
+
+    private static final Recorder RECORDER = recorder();
+    public static final boolean ENABLED = RECORDER != null;
+
+    private Phases() {
+    }
+
+    // Start timing a phase; pass the result to end(), null when events are off
+    public static Object begin(Phase phase) {
+        return ENABLED ? RECORDER.begin(phase) : null;
+    }
+
+    // Record the phase started by begin(); documentType and view may be null, version is -1 when unknown
+    public static void end(Object event, long rows, String documentType, String view, long version) {
+        if (event != null) {
+            RECORDER.end(event, rows, documentType, view, version);
+        }
+    }
+
+    private static Recorder recorder() {
+        if (!DashboardConfig.get().getBoolean("jfr.events", false)) {
+            return null;
+        }
+        try {
+            Class.forName("jdk.jfr.Event");
+        } catch (ClassNotFoundException e) {
+            System.err.println("jfr.events is set but this JVM has no Flight Recorder; phase events are off");
+            return null;
+        }
+        try {
+            return (Recorder) Class.forName("com.metrics.JfrRecorder").getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            System.err.println("jfr.events is set but this build has no phase events (built without the jfr profile)");
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Implemented by JfrRecorder (src/jfr/java), which creates and commits the events
+    interface Recorder {
+        Object begin(Phase phase);
+
+        void end(Object event, long rows, String documentType, String view, long version);
+    }
+}
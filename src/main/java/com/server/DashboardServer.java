@@ -0,0 +1,382 @@
+package com.server;
+
+import com.metrics.Metrics;
+import com.service.DataService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.utils.DashboardConfig;
+import com.utils.DashboardSeries;
+import com.utils.DashboardSnapshot;
+import com.utils.DocumentTypes;
+import com.utils.ExcelDataReader;
+import com.utils.JsonWriter;
+import com.utils.TatHistogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Read-only HTTP/JSON API over the data service, so any number of viewers share one ingestion of the source
+//   GET /api/version                                                   snapshot version and creation time
+//   GET /api/summary?type=                                             card counts, per type or for all types
+//   GET /api/series?chart=line|bar&view=weekly|monthly&type=&date=     chart series as on the dashboard
+//   GET /api/tasks?page=&size=&type=&date=                             rows, one page at a time
+//   GET /api/stream                                                    Server-Sent Events with a delta per refresh
+//   GET /api/metrics                                                   runtime metrics (see com.metrics.Metrics)
+// Every snapshot response carries the snapshot version as its ETag; a request with a matching If-None-Match gets a 304
+// without a body. Responses are built once per snapshot version and served from memory after that
+public class DashboardServer {
+    private static final int MAX_CACHED_RESPONSES = 256;
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 10_000;
+
+    private final DataService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final DeltaStream stream;
+
+    // Request URI -> body, for the snapshot version in cachedVersion only
+    private final Map<String, byte[]> responses = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > MAX_CACHED_RESPONSES;
+        }
+    };
+    private long cachedVersion = -1;
+
+    public DashboardServer(DataService service, int port, int threads) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        this.stream = new DeltaStream(service);
+        server.createContext("/api/stream", stream::handle);
+        server.createContext("/api/", this::handle);
+    }
+
+    // server.port (default 8090) and server.threads (default 4)
+    public static DashboardServer fromConfig(DashboardConfig config, DataService service) throws IOException {
+        return new DashboardServer(service, config.getInt("server.port", 8090), config.getInt("server.threads", 4));
+    }
+
+    // The data service must have been started
+    public void start() {
+        stream.start();
+        server.start();
+    }
+
+    public void stop() {
+        stream.stop();
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // Number of open /api/stream connections
+    public int getStreamSubscriberCount() {
+        return stream.getSubscriberCount();
+    }
+
+    // Actual port, useful when started on port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+
+            // Metrics change all the time, so they bypass the snapshot ETag and the response cache
+            if ("/api/metrics".equals(exchange.getRequestURI().getPath())) {
+                send(exchange, 200, Metrics.toJson().getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            // One snapshot per request, so the body and its ETag always agree
+            DashboardSnapshot snapshot = service.getSnapshot();
+            String etag = "\"" + snapshot.getVersion() + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            URI uri = exchange.getRequestURI();
+            byte[] body = cached(snapshot.getVersion(), uri.toString());
+            if (body == null) {
+                String json = render(snapshot, uri.getPath(), parseQuery(uri.getRawQuery()));
+                if (json == null) {
+                    sendError(exchange, 404, "Unknown endpoint: " + uri.getPath());
+                    return;
+                }
+                body = json.getBytes(StandardCharsets.UTF_8);
+                cache(snapshot.getVersion(), uri.toString(), body);
+            }
+            send(exchange, 200, body);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // JSON for one endpoint, or null if there is no such endpoint
+    private String render(DashboardSnapshot snapshot, String path, Map<String, String> query) {
+        switch (path) {
+            case "/api/version":
+                return renderVersion(snapshot);
+            case "/api/summary":
+                return renderSummary(snapshot, query);
+            case "/api/series":
+                return renderSeries(snapshot, query);
+            case "/api/tasks":
+                return renderTasks(snapshot, query);
+            default:
+                return null;
+        }
+    }
+
+    private String renderVersion(DashboardSnapshot snapshot) {
+        return new JsonWriter().beginObject()
+                .name("version").value(snapshot.getVersion())
+                .name("createdAt").value(snapshot.getCreatedAt())
+                .name("currentDate").value(snapshot.getCurrentDate())
+                .name("rows").value(snapshot.getTaskList().size())
+                .endObject().toString();
+    }
+
+    private String renderSummary(DashboardSnapshot snapshot, Map<String, String> query) {
+        List<String> types = new ArrayList<>();
+        String type = query.get("type");
+        if (type != null) {
+            types.add(type);
+        } else {
+            types.add(DashboardSnapshot.ALL_TYPES);
+            types.addAll(DocumentTypes.getAllDocumentTypes());
+        }
+
+        JsonWriter json = new JsonWriter().beginObject()
+                .name("version").value(snapshot.getVersion())
+                .name("currentDate").value(snapshot.getCurrentDate())
+                .name("types").beginArray();
+        for (String documentType : types) {
+            json.beginObject()
+                    .name("type").value(documentType)
+                    .name("new").value(snapshot.getNewTasksCount(documentType))
+                    .name("ongoing").value(snapshot.getOngoingTasksCount(documentType))
+                    .name("completed").value(snapshot.getCompletedTasksCount(documentType))
+                    .name("withinTat").value(snapshot.getNormalTATCount(documentType))
+                    .name("overTat").value(snapshot.getAbnormalTATCount(documentType));
+            // TAT percentiles in seconds over all days; the target only exists for a single type
+            TatHistogram tat = snapshot.getTatHistogram(documentType);
+            json.name("tat").beginObject()
+                    .name("count").value(tat.getCount())
+                    .name("p50").value(tat.percentile(50))
+                    .name("p90").value(tat.percentile(90))
+                    .name("p99").value(tat.percentile(99))
+                    .name("max").value(tat.getMax());
+            if (!DashboardSnapshot.ALL_TYPES.equals(documentType)) {
+                json.name("targetSeconds").value(DocumentTypes.getDocumentTatHours(documentType) * 3600L);
+            }
+            json.endObject().endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String renderSeries(DashboardSnapshot snapshot, Map<String, String> query) {
+        String chart = query.getOrDefault("chart", "line");
+        String view = query.getOrDefault("view", "weekly");
+        if (!"line".equals(chart) && !"bar".equals(chart)) {
+            throw new IllegalArgumentException("chart must be line or bar");
+        }
+        if (!"weekly".equals(view) && !"monthly".equals(view)) {
+            throw new IllegalArgumentException("view must be weekly or monthly");
+        }
+        String type = query.getOrDefault("type", DashboardSnapshot.ALL_TYPES);
+        String date = dateParameter(query);
+        boolean weekly = "weekly".equals(view);
+
+        Map<String, Map<String, Long>> series = "line".equals(chart)
+                ? DashboardSeries.completedSeries(snapshot, type, date, weekly)
+                : DashboardSeries.statusSeries(snapshot, type, date, weekly);
+
+        // All series share the categories of the first one
+        List<String> categories = series.isEmpty()
+                ? new ArrayList<>() : new ArrayList<>(series.values().iterator().next().keySet());
+
+        JsonWriter json = new JsonWriter().beginObject()
+                .name("version").value(snapshot.getVersion())
+                .name("chart").value(chart)
+                .name("view").value(view)
+                .name("type").value(type)
+                .name("categories").beginArray();
+        for (String category : categories) {
+            json.value(category);
+        }
+        json.endArray().name("series").beginArray();
+        for (Map.Entry<String, Map<String, Long>> entry : series.entrySet()) {
+            json.beginObject().name("name").value(entry.getKey()).name("values").beginArray();
+            for (String category : categories) {
+                json.value(entry.getValue().getOrDefault(category, 0L));
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String renderTasks(DashboardSnapshot snapshot, Map<String, String> query) {
+        int page = intParameter(query, "page", 0);
+        int size = intParameter(query, "size", DEFAULT_PAGE_SIZE);
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        String type = query.getOrDefault("type", DashboardSnapshot.ALL_TYPES);
+        String date = dateParameter(query);
+
+        List<ExcelDataReader.TaskData> tasks;
+        if (date != null) {
+            LocalDate day = LocalDate.parse(date);
+            tasks = snapshot.getTasksByDateRange(day, day);
+        } else {
+            tasks = snapshot.getTaskList();
+        }
+        if (!DashboardSnapshot.ALL_TYPES.equals(type)) {
+            List<ExcelDataReader.TaskData> ofType = new ArrayList<>();
+            for (ExcelDataReader.TaskData task : tasks) {
+                if (type.equals(task.getDocumentType())) {
+                    ofType.add(task);
+                }
+            }
+            tasks = ofType;
+        }
+
+        JsonWriter json = new JsonWriter().beginObject()
+                .name("version").value(snapshot.getVersion())
+                .name("total").value(tasks.size())
+                .name("page").value(page)
+                .name("size").value(size)
+                .name("columns").beginArray();
+        for (String column : ExcelDataReader.TaskData.COLUMNS) {
+            json.value(column);
+        }
+        json.endArray().name("rows").beginArray();
+        long from = (long) page * size;
+        for (long i = from; i < Math.min(tasks.size(), from + size); i++) {
+            json.beginArray();
+            for (String field : tasks.get((int) i).toFields()) {
+                json.value(field);
+            }
+            json.endArray();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    // yyyy-MM-dd, as selected on the dashboard, or null for today
+    private static String dateParameter(Map<String, String> query) {
+        String date = query.get("date");
+        if (date == null) {
+            return null;
+        }
+        LocalDate.parse(date);
+        return date;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        try {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), "UTF-8");
+                String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+                if (!value.isEmpty()) {
+                    query.put(name, value);
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return query;
+    }
+
+    private synchronized byte[] cached(long version, String uri) {
+        return version == cachedVersion ? responses.get(uri) : null;
+    }
+
+    private synchronized void cache(long version, String uri, byte[] body) {
+        if (version < cachedVersion) {
+            return;
+        }
+        if (version != cachedVersion) {
+            // A new snapshot makes every cached response stale
+            responses.clear();
+            cachedVersion = version;
+        }
+        responses.put(uri, body);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = new JsonWriter().beginObject().name("error").value(message).endObject().toString()
+                .getBytes(StandardCharsets.UTF_8);
+        send(exchange, status, body);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Run the data service and the API without a window: java -cp dashboard.jar com.server.DashboardServer
+    public static void main(String[] args) throws IOException {
+        DataService service = DataService.get();
+        DashboardServer server = fromConfig(DashboardConfig.get(), service);
+        server.start();
+        System.out.println("Dashboard API listening on port " + server.getPort());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            service.shutdown();
+        }));
+    }
+}
@@ -0,0 +1,327 @@
+package com.server;
+
+import com.service.DataService;
+import com.sun.net.httpserver.HttpExchange;
+import com.utils.DashboardDelta;
+import com.utils.ExcelDataReader;
+import com.utils.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// GET /api/stream: Server-Sent Events with one "delta" event per published snapshot (the event id is the new version),
+// or a "reset" event when the snapshot changed rows that a delta cannot address
+// A delta is serialized once and the same bytes are queued for every subscriber. The subscriber list and the backlog
+// live on one thread of their own and need no locking; the socket writes happen on writer threads, one at a time
+// per subscriber, so neither ingestion nor the other viewers wait for a slow one. A subscriber whose queue is full
+// is dropped: it was a backlog behind and has to reload anyway. A reconnecting client sends Last-Event-ID and gets
+// the deltas it missed from the backlog; if they are no longer there it gets a "reset" event and reloads through
+// the other endpoints
+class DeltaStream {
+    private static final int BACKLOG = 64;
+    // Events waiting for one subscriber; the missed deltas of a reconnect always fit
+    private static final int QUEUE = BACKLOG;
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final DataService service;
+    private final ScheduledExecutorService executor;
+    private final ExecutorService writers;
+    private final Consumer<DashboardDelta> listener = this::onDelta;
+
+    // Only used on the executor thread
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final Deque<Event> backlog = new ArrayDeque<>();
+    private long lastVersion;
+
+    private volatile int subscriberCount;
+
+    DeltaStream(DataService service) {
+        this.service = service;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-sse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-sse-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        lastVersion = service.getSnapshot().getVersion();
+        service.addDeltaListener(listener);
+        // Comments keep proxies from closing idle streams and find subscribers that went away
+        executor.scheduleWithFixedDelay(() -> broadcast(HEARTBEAT), HEARTBEAT_SECONDS, HEARTBEAT_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    void stop() {
+        service.removeDeltaListener(listener);
+        executor.execute(() -> {
+            subscribers.forEach(Subscriber::drop);
+            subscribers.clear();
+            subscriberCount = 0;
+            writers.shutdown();
+        });
+        executor.shutdown();
+    }
+
+    // The exchange stays open after this returns; events are written to it until the client goes away
+    void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        Long lastSeen = parseVersion(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        try {
+            executor.execute(() -> subscribe(out, lastSeen));
+        } catch (RejectedExecutionException e) {
+            closeQuietly(out);
+        }
+    }
+
+    int getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    // Called on the refresh thread, which only pays for the serialization
+    private void onDelta(DashboardDelta delta) {
+        byte[] bytes = delta.isReset()
+                ? event(delta.getToVersion(), "reset", versionJson(delta.getToVersion()))
+                : event(delta.getToVersion(), "delta", toJson(delta));
+        Event event = new Event(delta.getFromVersion(), delta.getToVersion(), bytes);
+        try {
+            executor.execute(() -> {
+                backlog.addLast(event);
+                if (backlog.size() > BACKLOG) {
+                    backlog.removeFirst();
+                }
+                lastVersion = event.toVersion;
+                broadcast(event.bytes);
+            });
+        } catch (RejectedExecutionException e) {
+            // Stopped
+        }
+    }
+
+    private void subscribe(OutputStream out, Long lastSeen) {
+        Subscriber subscriber = new Subscriber(out, writers);
+        if (lastSeen == null) {
+            subscriber.send(event(lastVersion, "hello", versionJson(lastVersion)));
+        } else if (lastSeen != lastVersion) {
+            List<Event> missed = missedSince(lastSeen);
+            if (missed == null) {
+                subscriber.send(event(lastVersion, "reset", versionJson(lastVersion)));
+            } else {
+                for (Event event : missed) {
+                    subscriber.send(event.bytes);
+                }
+            }
+        }
+        subscribers.add(subscriber);
+        subscriberCount = subscribers.size();
+    }
+
+    // Queue the bytes for every subscriber; never waits for a socket
+    private void broadcast(byte[] bytes) {
+        for (Iterator<Subscriber> it = subscribers.iterator(); it.hasNext(); ) {
+            Subscriber subscriber = it.next();
+            if (!subscriber.send(bytes)) {
+                it.remove();
+                subscriber.drop();
+            }
+        }
+        subscriberCount = subscribers.size();
+    }
+
+    // The backlog events after the given version, or null if it does not reach back that far
+    private List<Event> missedSince(long version) {
+        List<Event> missed = new ArrayList<>();
+        boolean found = false;
+        for (Event event : backlog) {
+            if (event.fromVersion == version) {
+                found = true;
+            }
+            if (found) {
+                missed.add(event);
+            }
+        }
+        return found ? missed : null;
+    }
+
+    private static String toJson(DashboardDelta delta) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .name("from").value(delta.getFromVersion())
+                .name("to").value(delta.getToVersion())
+                .name("currentDate").value(delta.getCurrentDate())
+                .name("cards").beginArray();
+        for (DashboardDelta.CardChange card : delta.getCards()) {
+            json.beginObject()
+                    .name("type").value(card.getDocumentType())
+                    .name("card").value(card.getCard().name())
+                    .name("value").value(card.getValue())
+                    .endObject();
+        }
+        json.endArray().name("points").beginArray();
+        for (DashboardDelta.PointChange point : delta.getPoints()) {
+            json.beginObject()
+                    .name("view").value(point.getView())
+                    .name("type").value(point.getDocumentType())
+                    .name("series").value(point.getSeries())
+                    .name("category").value(point.getCategory())
+                    .name("value").value(point.getValue())
+                    .endObject();
+        }
+        json.endArray();
+        if (!delta.getUpserted().isEmpty()) {
+            json.name("columns").beginArray();
+            for (String column : ExcelDataReader.TaskData.COLUMNS) {
+                json.value(column);
+            }
+            json.endArray();
+        }
+        json.name("rows").beginArray();
+        for (ExcelDataReader.TaskData task : delta.getUpserted()) {
+            json.beginArray();
+            for (String field : task.toFields()) {
+                json.value(field);
+            }
+            json.endArray();
+        }
+        json.endArray().name("removed").beginArray();
+        for (String key : delta.getRemoved()) {
+            json.value(key);
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private static String versionJson(long version) {
+        return new JsonWriter().beginObject().name("version").value(version).endObject().toString();
+    }
+
+    private static byte[] event(long id, String name, String data) {
+        return ("id: " + id + "\nevent: " + name + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Long parseVersion(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // The client is gone already
+        }
+    }
+
+    // One client connection: a bounded queue of events and at most one writer task draining it
+    private static final class Subscriber {
+        private final OutputStream out;
+        private final Executor writers;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(OutputStream out, Executor writers) {
+            this.out = out;
+            this.writers = writers;
+        }
+
+        // False when the subscriber is gone or too far behind
+        boolean send(byte[] bytes) {
+            if (closed || !queue.offer(bytes)) {
+                return false;
+            }
+            schedule();
+            return true;
+        }
+
+        // Stop sending; the writer closes the stream once its current write returns
+        void drop() {
+            closed = true;
+            queue.clear();
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Stopped
+                    closed = true;
+                    closeQuietly(out);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                byte[] bytes;
+                while (!closed && (bytes = queue.poll()) != null) {
+                    out.write(bytes);
+                    if (queue.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException e) {
+                closed = true;
+            }
+            if (closed) {
+                queue.clear();
+                closeQuietly(out);
+                return;
+            }
+            draining.set(false);
+            // An event queued after the last poll but before the flag was cleared
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private static final class Event {
+        private final long fromVersion;
+        private final long toVersion;
+        private final byte[] bytes;
+
+        Event(long fromVersion, long toVersion, byte[] bytes) {
+            this.fromVersion = fromVersion;
+            this.toVersion = toVersion;
+            this.bytes = bytes;
+        }
+    }
+}
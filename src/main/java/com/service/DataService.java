@@ -0,0 +1,561 @@
+package com.service;
+
+import com.metrics.Metrics;
+import com.source.DirectoryFollower;
+import com.source.TaskSource;
+import com.source.TaskSources;
+import com.store.ChangeLog;
+import com.store.SnapshotCache;
+import com.store.TimeSeriesStore;
+import com.utils.DashboardConfig;
+import com.utils.DashboardDelta;
+import com.utils.DashboardSnapshot;
+import com.utils.ExcelDataReader;
+import com.utils.RefreshScheduler;
+import com.utils.SnapshotTimeline;
+import com.utils.WorkbookFederation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Headless ingestion of the configured source: refreshes it on the adaptive scheduler and publishes every
+// result as an immutable DashboardSnapshot. Readers take getSnapshot() whenever they need the data, or
+// subscribe to be told about each new snapshot (or only about what changed, as a DashboardDelta);
+// the source is read once however many readers there are
+// One instance per process (get()) is shared by all dashboard windows, so another window only costs its rendering
+public class DataService {
+    private static volatile DataService instance;
+
+    private static final Metrics.Counter PUBLISHED = Metrics.counter("snapshot.published");
+    private static final Metrics.Gauge SNAPSHOT_ROWS = Metrics.gauge("snapshot.rows");
+    private static final Metrics.Gauge SNAPSHOT_VERSION = Metrics.gauge("snapshot.version");
+
+    private final DashboardConfig config;
+    private volatile TaskSource source;  // null for a federation; replaced by an import
+    private final WorkbookFederation federation;
+    private final SnapshotCache cache;
+    private final TimeSeriesStore history;
+    private final ChangeLog changeLog;
+    private final SnapshotTimeline timeline;
+
+    private final AtomicReference<Publication> published = new AtomicReference<>();
+    private final List<Consumer<DashboardSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<DashboardDelta>> deltaListeners = new CopyOnWriteArrayList<>();
+
+    // A request bumps the generation, older refreshes stop and publish nothing
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean forcePublish = new AtomicBoolean();
+    private String lastSourceVersion;
+    private Long lastContentFingerprint;
+
+    // Phase timings of the last refreshes (diagnostics.refreshHistory), oldest first
+    private final ArrayDeque<RefreshTiming> timings = new ArrayDeque<>();
+    private final int timingCapacity;
+
+    // Data of a follow mode source, new rows are merged into it
+    private ExcelDataReader liveReader;
+    private volatile boolean stopped;
+    private RefreshScheduler scheduler;
+    private boolean started;
+
+    public DataService(DashboardConfig config, TaskSource source, WorkbookFederation federation) {
+        this.config = config;
+        this.source = source;
+        this.federation = federation;
+        this.cache = SnapshotCache.fromConfig(config);
+        this.history = TimeSeriesStore.fromConfig(config);
+        this.changeLog = ChangeLog.fromConfig(config);
+        this.timeline = SnapshotTimeline.fromConfig(config);
+        this.timingCapacity = Math.max(1, config.getInt("diagnostics.refreshHistory", 50));
+    }
+
+    // A federation when source.paths is set, otherwise the single configured source
+    public static DataService fromConfig(DashboardConfig config) {
+        WorkbookFederation federation = WorkbookFederation.fromConfig(config);
+        return new DataService(config, federation == null ? TaskSources.fromConfig(config) : null, federation);
+    }
+
+    // The shared, started service of this process; created from the configuration on first use
+    public static DataService get() {
+        if (instance == null) {
+            synchronized (DataService.class) {
+                if (instance == null) {
+                    DataService service = fromConfig(DashboardConfig.get());
+                    service.start();
+                    instance = service;
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Make a service built some other way (workbooks from the command line) the shared one, and start it
+    public static DataService install(DataService service) {
+        synchronized (DataService.class) {
+            service.start();
+            instance = service;
+        }
+        return service;
+    }
+
+    // Publish the last known data right away, then keep refreshing in the background
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Metrics.exportFromConfig(config);
+        if (source instanceof DirectoryFollower) {
+            startFollow((DirectoryFollower) source);
+            return;
+        }
+        publish(loadLastKnown());
+        scheduler = RefreshScheduler.fromConfig(config, this::refresh);
+        scheduler.start();
+    }
+
+    // The latest snapshot of all data; never null once started
+    public DashboardSnapshot getSnapshot() {
+        return published.get().snapshot;
+    }
+
+    // The latest snapshot of one branch of a federation (all data for ALL_BRANCHES or an unknown branch)
+    // Built on first use and shared by every caller until the next publication
+    public DashboardSnapshot getSnapshot(String branch) {
+        Publication publication = published.get();
+        ExcelDataReader reader = publication.branches.get(branch);
+        if (reader == null) {
+            return publication.snapshot;
+        }
+        return publication.branchSnapshots.computeIfAbsent(branch, key -> DashboardSnapshot.of(reader));
+    }
+
+    // Branches of the latest publication, in alphabetical order; empty unless the source is a federation
+    public List<String> getBranches() {
+        return new ArrayList<>(published.get().branches.keySet());
+    }
+
+    public boolean isFederation() {
+        return federation != null;
+    }
+
+    public boolean isFollowing() {
+        return source instanceof DirectoryFollower;
+    }
+
+    // Daily aggregates of every refresh for the trend view, null when disabled
+    public TimeSeriesStore getHistory() {
+        return history;
+    }
+
+    // Row changes between refreshes, null when disabled
+    public ChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    // Versions of the published data for the timeline slider, null when disabled
+    public SnapshotTimeline getTimeline() {
+        return timeline;
+    }
+
+    // Called on the refresh thread with every new snapshot
+    public void addListener(Consumer<DashboardSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<DashboardSnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    // Called on the refresh thread with the changes of every new snapshot against the one before it, in order;
+    // deltas are only computed while someone listens, and once per snapshot however many listeners there are
+    public void addDeltaListener(Consumer<DashboardDelta> listener) {
+        deltaListeners.add(listener);
+    }
+
+    public void removeDeltaListener(Consumer<DashboardDelta> listener) {
+        deltaListeners.remove(listener);
+    }
+
+    // Supersede a running refresh (it stops at its next row batch and publishes nothing) and refresh right away
+    // A burst of requests while one refresh runs ends in a single new refresh
+    public void requestRefresh() {
+        forcePublish.set(true);
+        generation.incrementAndGet();
+        if (scheduler != null) {
+            scheduler.triggerNow();
+        }
+    }
+
+    // Add a data file picked by the user
+    //   follow mode: copied into the drop directory, the follower picks it up and merges it
+    //   federation:  joins as another partition
+    //   otherwise:   copied over data.xlsx / data.csv in the working directory and read from then on
+    public void importFile(Path file) throws IOException {
+        TaskSource current = source;
+        if (current instanceof DirectoryFollower) {
+            Files.copy(file, ((DirectoryFollower) current).getDirectory().resolve(file.getFileName()),
+                    StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        if (federation != null) {
+            federation.addPath(file.toAbsolutePath().toString());
+            requestRefresh();
+            return;
+        }
+        // Keep the extension so the matching reader is used
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        Path target = Paths.get(System.getProperty("user.dir"), fileName.endsWith(".csv") ? "data.csv" : "data.xlsx");
+        Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        source = TaskSources.forPath(target.toString());
+        requestRefresh();
+    }
+
+    // Interval and latency of the refreshes; null in follow mode
+    public RefreshScheduler getScheduler() {
+        return scheduler;
+    }
+
+    // Phase timings of the last refreshes (and follow mode merges), oldest first
+    public List<RefreshTiming> getRefreshTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+
+    public void shutdown() {
+        stopped = true;
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (federation != null) {
+            federation.shutdown();
+        }
+        if (source instanceof DirectoryFollower) {
+            ((DirectoryFollower) source).stop();
+        }
+    }
+
+    private ExcelDataReader loadLastKnown() {
+        if (federation != null) {
+            federation.loadLastKnown();
+            // Nothing cached: empty until the first refresh has loaded the workbooks
+            ExcelDataReader reader = federation.getReader(WorkbookFederation.ALL_BRANCHES);
+            return reader != null ? reader : ExcelDataReader.combine(Collections.emptyList());
+        }
+        ExcelDataReader cached = cache != null && source.getFile() != null ? cache.loadLastKnown(source) : null;
+        return cached != null ? cached : new ExcelDataReader(source);
+    }
+
+    // One scheduled refresh; returns true when a new snapshot was published
+    private boolean refresh() {
+        RefreshTiming timing = new RefreshTiming();
+        try {
+            timing.outcome = refresh(timing);
+            return timing.outcome == RefreshTiming.Outcome.PUBLISHED;
+        } catch (CancellationException e) {
+            timing.outcome = RefreshTiming.Outcome.SUPERSEDED;
+            throw e;
+        } finally {
+            addTiming(timing);
+        }
+    }
+
+    private RefreshTiming.Outcome refresh(RefreshTiming timing) {
+        try {
+            return refreshOrFail(timing);
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // Nothing was published: the next poll must not take the same file for already shown
+            lastSourceVersion = null;
+            lastContentFingerprint = null;
+            if (federation != null) {
+                forcePublish.set(true);
+            }
+            throw e;
+        }
+    }
+
+    private RefreshTiming.Outcome refreshOrFail(RefreshTiming timing) {
+        long current = generation.incrementAndGet();
+        BooleanSupplier superseded = () -> generation.get() != current;
+        boolean forced = forcePublish.getAndSet(false);
+
+        ExcelDataReader reader;
+        String sourceVersion = null;
+        Long fingerprint = null;
+        if (federation != null) {
+            boolean changed = federation.refresh(superseded);
+            timing.read = timing.lap();
+            if (!changed && !forced) {
+                return RefreshTiming.Outcome.UNCHANGED;
+            }
+            reader = federation.getReader(WorkbookFederation.ALL_BRANCHES);
+            timing.rows = reader.getTaskList().size();
+        } else {
+            // A file that has the same size and modification time (on the same working day) is not read again
+            TaskSource taskSource = source;
+            String version = taskSource.getVersion();
+            sourceVersion = version == null ? null : version + ":" + ExcelDataReader.getCurrentWorkingDate();
+            if (sourceVersion != null && sourceVersion.equals(lastSourceVersion) && !forced) {
+                timing.read = timing.lap();
+                return RefreshTiming.Outcome.UNCHANGED;
+            }
+            reader = parse(taskSource, superseded);
+            timing.read = timing.lap();
+            timing.rows = reader.getTaskList().size();
+
+            // Sources without a file (database) are read every time; publish only when the rows differ
+            fingerprint = reader.getContentFingerprint();
+            if (fingerprint.equals(lastContentFingerprint) && !forced) {
+                lastSourceVersion = sourceVersion;
+                return RefreshTiming.Outcome.UNCHANGED;
+            }
+        }
+
+        if (superseded.getAsBoolean()) {
+            // The newer request has its own refresh queued; stale data is neither logged nor published, and the
+            // scheduler keeps its interval
+            forcePublish.set(true);
+            throw new CancellationException("Refresh was superseded");
+        }
+        record(reader);
+        timing.record = timing.lap();
+        publish(reader, timing);
+        // Only now is this version on screen
+        if (federation == null) {
+            lastSourceVersion = sourceVersion;
+            lastContentFingerprint = fingerprint;
+        }
+        return RefreshTiming.Outcome.PUBLISHED;
+    }
+
+    private void addTiming(RefreshTiming timing) {
+        timing.finish();
+        synchronized (timings) {
+            if (timings.size() == timingCapacity) {
+                timings.removeFirst();
+            }
+            timings.addLast(timing);
+        }
+    }
+
+    private ExcelDataReader parse(TaskSource taskSource, BooleanSupplier cancelled) {
+        if (cache != null && taskSource.getFile() != null) {
+            return cache.loadOrRead(taskSource, () -> parseSource(taskSource, cancelled));
+        }
+        return parseSource(taskSource, cancelled);
+    }
+
+    private static ExcelDataReader parseSource(TaskSource taskSource, BooleanSupplier cancelled) {
+        ExcelDataReader reader = new ExcelDataReader(taskSource);
+        reader.setCancellation(cancelled);
+        reader.readExcelData();
+        return reader;
+    }
+
+    // Follow mode: the follower replays the drop directory, then new files are merged in as soon as they land
+    // start() may run on the EDT, so the replay runs on its own thread; until it is done the data is empty
+    private void startFollow(DirectoryFollower follower) {
+        publish(new ExcelDataReader(follower));
+        Thread replay = new Thread(() -> replayAndFollow(follower), "follow-replay");
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    private void replayAndFollow(DirectoryFollower follower) {
+        ExcelDataReader reader = new ExcelDataReader(follower);
+        try {
+            reader.readExcelData();
+        } catch (RuntimeException e) {
+            // The drop directory could not be read; new files are still followed
+            e.printStackTrace();
+            reader = new ExcelDataReader(follower);
+        }
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            liveReader = reader;
+            record(liveReader);
+            publish(liveReader);
+        }
+        try {
+            follower.start((file, rows) -> {
+                synchronized (this) {
+                    RefreshTiming timing = new RefreshTiming();
+                    liveReader.mergeRows(rows);
+                    timing.read = timing.lap();
+                    timing.rows = liveReader.getTaskList().size();
+                    record(liveReader);
+                    timing.record = timing.lap();
+                    publish(liveReader, timing);
+                    timing.outcome = RefreshTiming.Outcome.PUBLISHED;
+                    addTiming(timing);
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Keep the daily figures in the local history so the trend view outlives the rotation of the data file,
+    // and log the status transitions since the previous refresh
+    private void record(ExcelDataReader reader) {
+        if (history != null) {
+            history.append(reader);
+        }
+        if (changeLog != null) {
+            changeLog.record(reader);
+        }
+    }
+
+    private void publish(ExcelDataReader reader) {
+        publish(reader, null);
+    }
+
+    // Synchronized so listeners see the snapshots and deltas in version order
+    // The time to build the snapshot and to notify the listeners goes into the timing, if there is one
+    private synchronized void publish(ExcelDataReader reader, RefreshTiming timing) {
+        if (timeline != null) {
+            timeline.capture(reader);
+        }
+        Map<String, ExcelDataReader> branches = new LinkedHashMap<>();
+        if (federation != null) {
+            for (String branch : federation.getBranches()) {
+                branches.put(branch, federation.getReader(branch));
+            }
+        }
+        Publication publication = new Publication(DashboardSnapshot.of(reader), Collections.unmodifiableMap(branches));
+        Publication previous = published.getAndSet(publication);
+        PUBLISHED.increment();
+        SNAPSHOT_ROWS.set(publication.snapshot.getTaskList().size());
+        SNAPSHOT_VERSION.set(publication.snapshot.getVersion());
+        if (timing != null) {
+            timing.version = publication.snapshot.getVersion();
+            timing.snapshot = timing.lap();
+        }
+
+        dispatch(listeners, publication.snapshot);
+        if (previous != null && !deltaListeners.isEmpty()) {
+            // Sent even when empty, so the versions of consecutive deltas always chain
+            dispatch(deltaListeners, DashboardDelta.between(previous.snapshot, publication.snapshot));
+        }
+        if (timing != null) {
+            timing.dispatch = timing.lap();
+        }
+    }
+
+    private static <T> void dispatch(List<Consumer<T>> targets, T value) {
+        for (Consumer<T> listener : targets) {
+            try {
+                listener.accept(value);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Where the time of one refresh went: reading the source (or the changed workbooks), recording history and
+    // change log, building the snapshot, and running the listeners (window updates are queued on the EDT, so they
+    // only count the hand-over); phases the refresh did not reach stay 0
+    public static final class RefreshTiming {
+        public enum Outcome {
+            PUBLISHED, UNCHANGED, SUPERSEDED, FAILED
+        }
+
+        private final long start = System.nanoTime();
+        private long last = start;
+        private long finishedAt;
+        private Outcome outcome = Outcome.FAILED;
+        private int rows = -1;
+        private long version = -1;
+        private long read;
+        private long record;
+        private long snapshot;
+        private long dispatch;
+        private long total;
+
+        // Nanoseconds since the previous lap
+        private long lap() {
+            long now = System.nanoTime();
+            long elapsed = now - last;
+            last = now;
+            return elapsed;
+        }
+
+        private void finish() {
+            total = System.nanoTime() - start;
+            finishedAt = System.currentTimeMillis();
+        }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        // Rows of the data read, -1 when the source was not read
+        public int getRows() {
+            return rows;
+        }
+
+        // Version of the published snapshot, -1 when nothing was published
+        public long getVersion() {
+            return version;
+        }
+
+        public long getReadNanos() {
+            return read;
+        }
+
+        public long getRecordNanos() {
+            return record;
+        }
+
+        public long getSnapshotNanos() {
+            return snapshot;
+        }
+
+        public long getDispatchNanos() {
+            return dispatch;
+        }
+
+        public long getTotalNanos() {
+            return total;
+        }
+    }
+
+    // What one publication made visible: the snapshot of all data and the branch readers it was built with
+    private static final class Publication {
+        private final DashboardSnapshot snapshot;
+        private final Map<String, ExcelDataReader> branches;
+        private final Map<String, DashboardSnapshot> branchSnapshots = new ConcurrentHashMap<>();
+
+        Publication(DashboardSnapshot snapshot, Map<String, ExcelDataReader> branches) {
+            this.snapshot = snapshot;
+            this.branches = branches;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.source;
+
+import com.utils.ExcelDataReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Several sources read one after another, for example all workbooks of a federation
+public class CompositeTaskSource implements TaskSource {
+    private final List<TaskSource> sources;
+
+    public CompositeTaskSource(List<TaskSource> sources) {
+        this.sources = new ArrayList<>(sources);
+    }
+
+    @Override
+    public void read(Consumer<ExcelDataReader.ExcelModel> handler) throws IOException {
+        for (TaskSource source : sources) {
+            source.read(handler);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return sources.stream().map(TaskSource::getName).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,268 @@
+package com.source;
+
+import com.utils.ExcelDataReader;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Streams a CSV export (same headers as the workbook) through a buffered NIO reader
+// Only one record is held in memory at a time, so file size does not matter
+public class CsvTaskSource implements TaskSource {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final Charset charset;
+    private final char delimiter;
+
+    public CsvTaskSource(String filePath) {
+        this(Paths.get(filePath), StandardCharsets.UTF_8, ',');
+    }
+
+    public CsvTaskSource(Path path, Charset charset, char delimiter) {
+        this.path = path;
+        this.charset = charset;
+        this.delimiter = delimiter;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void read(Consumer<ExcelDataReader.ExcelModel> handler) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, charset)) {
+            CsvParser parser = new CsvParser(reader, delimiter);
+
+            // The first record is the header row
+            List<String> header = parser.next();
+            if (header == null) {
+                return;
+            }
+            Field[] fields = TaskColumns.resolve(header.toArray(new String[0]));
+
+            emitRecords(parser, fields, handler);
+        }
+    }
+
+    // Tail support: read the complete records starting at a byte offset and return the offset after the last one
+    // A record that is still being written (no line break yet) is left for the next call
+    public long readFrom(long offset, Consumer<ExcelDataReader.ExcelModel> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= offset) {
+                return offset;
+            }
+
+            // Streamed, not mapped: the exporter may still append to or replace the file, which a mapping blocks
+            // on Windows until it is collected; nor is the tail copied whole, a new export can be large
+            long end = completeRecordsEnd(channel, offset, size);
+            if (end == offset) {
+                return offset;
+            }
+            channel.position(offset);
+            CsvParser parser = new CsvParser(new InputStreamReader(
+                    new BoundedInputStream(Channels.newInputStream(channel), end - offset), charset), delimiter);
+
+            // The header only lives at the start of the file
+            Field[] fields;
+            if (offset == 0) {
+                List<String> header = parser.next();
+                fields = TaskColumns.resolve(header.toArray(new String[0]));
+            } else {
+                fields = readHeader();
+            }
+            if (fields != null) {
+                emitRecords(parser, fields, handler);
+            }
+            return end;
+        }
+    }
+
+    private Field[] readHeader() throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, charset)) {
+            List<String> header = new CsvParser(reader, delimiter).next();
+            return header == null ? null : TaskColumns.resolve(header.toArray(new String[0]));
+        }
+    }
+
+    private static void emitRecords(CsvParser parser, Field[] fields,
+                                    Consumer<ExcelDataReader.ExcelModel> handler) throws IOException {
+        List<String> record;
+        while ((record = parser.next()) != null) {
+            // Skip completely empty lines (for example a trailing newline)
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            ExcelDataReader.ExcelModel model = new ExcelDataReader.ExcelModel();
+            int columns = Math.min(record.size(), fields.length);
+            for (int i = 0; i < columns; i++) {
+                TaskColumns.set(model, fields[i], record.get(i));
+            }
+            handler.accept(model);
+        }
+    }
+
+    // File position just after the last line break between offset and size that is not inside a quoted field,
+    // offset when there is none
+    // Scanning bytes is safe for UTF-8 because '"' and '\n' never occur inside multi-byte sequences
+    private static long completeRecordsEnd(FileChannel channel, long offset, long size) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, size - offset));
+        boolean quoted = false;
+        long end = offset;
+        long position = offset;
+        channel.position(offset);
+        while (position < size) {
+            bytes.clear();
+            bytes.limit((int) Math.min(bytes.capacity(), size - position));
+            if (channel.read(bytes) < 0) {
+                break;
+            }
+            bytes.flip();
+            for (int i = 0; i < bytes.limit(); i++) {
+                byte b = bytes.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    end = position + i + 1;
+                }
+            }
+            position += bytes.limit();
+        }
+        return end;
+    }
+
+    // The first limit bytes of a stream; the records after the last complete one are left for the next call
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return path.toString();
+    }
+
+    @Override
+    public Path getFile() {
+        return path;
+    }
+
+    // Minimal RFC 4180 parser: quoted fields, escaped quotes ("") and line breaks inside quotes
+    static class CsvParser {
+        private final Reader reader;
+        private final char delimiter;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder field = new StringBuilder();
+        private int position;
+        private int limit;
+
+        CsvParser(Reader reader, char delimiter) {
+            this.reader = reader;
+            this.delimiter = delimiter;
+        }
+
+        // Returns the next record, or null at end of input
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+
+            List<String> record = new ArrayList<>();
+            boolean quoted = false;
+            field.setLength(0);
+
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    int following = read();
+                    if (following != '\n' && following != -1) {
+                        position--;
+                    }
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+
+            record.add(field.toString());
+            return record;
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+}
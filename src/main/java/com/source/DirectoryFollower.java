@@ -0,0 +1,324 @@
+package com.source;
+
+import com.utils.ExcelDataReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Follows an export drop directory: every new (or growing) CSV / xlsx file is ingested once, in arrival order
+// As a TaskSource it replays all files seen so far; start() then keeps watching the folder and hands over only the new rows
+// Progress is kept per file in a checkpoint (.follow-checkpoint): byte offset for CSV files, row count for workbooks
+public class DirectoryFollower implements TaskSource {
+    public static final String CHECKPOINT_FILE = ".follow-checkpoint";
+
+    // How long the watch loop waits for events before looking at settled files again
+    private static final long POLL_MILLIS = 250;
+
+    // Called with the new rows of one file; rows must be merged by key, a file may be re-delivered after a crash
+    public interface Listener {
+        void onRows(Path file, List<ExcelDataReader.ExcelModel> rows);
+    }
+
+    private final Path directory;
+    private final long settleMillis;
+
+    // Files in arrival order, keyed by file name
+    private final Map<String, FileState> files = new LinkedHashMap<>();
+
+    // Files with pending change events and the time of their last event
+    private final Map<Path, Long> pending = new LinkedHashMap<>();
+
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread thread;
+
+    public DirectoryFollower(Path directory, long settleMillis) {
+        this.directory = directory;
+        this.settleMillis = settleMillis;
+        loadCheckpoint();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Replay every known file from the beginning (startup), then add files that arrived while we were not running
+    @Override
+    public synchronized void read(Consumer<ExcelDataReader.ExcelModel> handler) throws IOException {
+        Files.createDirectories(directory);
+        discoverFiles();
+
+        for (FileState state : files.values()) {
+            Path file = directory.resolve(state.name);
+            if (!Files.isRegularFile(file)) {
+                state.offset = 0;
+                continue;
+            }
+            try {
+                List<ExcelDataReader.ExcelModel> rows = new ArrayList<>();
+                FileState progress = collect(file, state, 0, rows);
+                rows.forEach(handler);
+                state.advance(progress);
+            } catch (RuntimeException e) {
+                // Half-written workbook: it will be picked up again, from the start, when the next change event arrives
+                System.err.println("Skipping unreadable file " + file + ": " + e.getMessage());
+                state.offset = 0;
+            }
+        }
+        saveCheckpoint();
+    }
+
+    @Override
+    public String getName() {
+        return directory.toString();
+    }
+
+    // Start watching the directory on a background thread
+    public synchronized void start(Listener listener) throws IOException {
+        if (running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+
+        thread = new Thread(() -> watchLoop(listener), "directory-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void watchLoop(Listener listener) {
+        // Files dropped between the replay and the registration of the watch service
+        synchronized (this) {
+            for (Path file : listFiles()) {
+                pending.put(file, 0L);
+            }
+        }
+
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    long now = System.currentTimeMillis();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Events were lost, rescan the whole folder
+                            synchronized (this) {
+                                for (Path file : listFiles()) {
+                                    pending.put(file, now);
+                                }
+                            }
+                            continue;
+                        }
+                        Path file = directory.resolve((Path) event.context());
+                        if (isDataFile(file)) {
+                            synchronized (this) {
+                                // put() keeps the first arrival position and only refreshes the event time
+                                pending.put(file, now);
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+                processSettledFiles(listener);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Ingest files whose last change is older than the settle time, in arrival order
+    private synchronized void processSettledFiles(Listener listener) {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < settleMillis) {
+                continue;
+            }
+
+            Path file = entry.getKey();
+            if (!Files.isRegularFile(file)) {
+                iterator.remove();
+                continue;
+            }
+
+            FileState state = files.computeIfAbsent(file.getFileName().toString(), FileState::new);
+            try {
+                List<ExcelDataReader.ExcelModel> rows = new ArrayList<>();
+                FileState progress = collect(file, state, state.offset, rows);
+                if (!rows.isEmpty()) {
+                    listener.onRows(file, rows);
+                }
+                // Only rows the listener took are done; after a failure the same rows are read again
+                state.advance(progress);
+                iterator.remove();
+                saveCheckpoint();
+            } catch (Exception e) {
+                // Most likely still being written; retry after the next settle period
+                entry.setValue(now);
+            }
+        }
+    }
+
+    // Read the rows of a file after the given offset into rows; returns the progress after them, which the caller
+    // applies to the state once the rows are delivered
+    private FileState collect(Path file, FileState state, long from, List<ExcelDataReader.ExcelModel> rows)
+            throws IOException {
+        FileState progress = new FileState(state.name);
+        progress.size = Files.size(file);
+        progress.modified = Files.getLastModifiedTime(file).toMillis();
+        progress.offset = from;
+
+        if (isCsv(file)) {
+            // A shorter file than last time means it was rewritten, start over
+            long start = progress.size < from ? 0 : from;
+            progress.offset = new CsvTaskSource(file.toString()).readFrom(start, rows::add);
+        } else if (progress.size != state.size || progress.modified != state.modified || from == 0) {
+            // Workbooks cannot be tailed, so re-read and skip the rows that were already delivered
+            long[] rowNumber = {0};
+            new ExcelTaskSource(file.toString()).read(row -> {
+                if (rowNumber[0]++ >= from) {
+                    rows.add(row);
+                }
+            });
+            progress.offset = rowNumber[0];
+        }
+        return progress;
+    }
+
+    // Register files that are not in the checkpoint yet, oldest first
+    private void discoverFiles() {
+        for (Path file : listFiles()) {
+            files.computeIfAbsent(file.getFileName().toString(), FileState::new);
+        }
+    }
+
+    private List<Path> listFiles() {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (isDataFile(file) && Files.isRegularFile(file)) {
+                    result.add(file);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        result.sort(Comparator.<Path>comparingLong(file -> {
+            try {
+                return Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                return Long.MAX_VALUE;
+            }
+        }).thenComparing(file -> file.getFileName().toString()));
+        return result;
+    }
+
+    private static boolean isDataFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        // Skip hidden files, the checkpoint itself and Office lock files
+        if (name.startsWith(".") || name.startsWith("~$")) {
+            return false;
+        }
+        return name.endsWith(".csv") || name.endsWith(".xlsx") || name.endsWith(".xls");
+    }
+
+    private static boolean isCsv(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+
+    // Checkpoint format: one "name<TAB>size<TAB>modified<TAB>offset" line per file, in arrival order
+    private void loadCheckpoint() {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.isRegularFile(checkpoint)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t");
+                if (parts.length == 4) {
+                    FileState state = new FileState(parts[0]);
+                    state.size = Long.parseLong(parts[1]);
+                    state.modified = Long.parseLong(parts[2]);
+                    state.offset = Long.parseLong(parts[3]);
+                    files.put(state.name, state);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Write to a temporary file first so a crash never leaves a truncated checkpoint
+    private void saveCheckpoint() {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (FileState state : files.values()) {
+                    writer.write(state.name + "\t" + state.size + "\t" + state.modified + "\t" + state.offset);
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class FileState {
+        private final String name;
+        private long size;
+        private long modified;
+        private long offset;
+
+        FileState(String name) {
+            this.name = name;
+        }
+
+        void advance(FileState progress) {
+            size = progress.size;
+            modified = progress.modified;
+            offset = progress.offset;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.source;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.read.listener.ReadListener;
+import com.utils.ExcelDataReader;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+// Reads the first sheet of an xlsx/xls workbook with EasyExcel
+public class ExcelTaskSource implements TaskSource {
+    private final String filePath;
+
+    public ExcelTaskSource(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public void read(Consumer<ExcelDataReader.ExcelModel> handler) {
+        // EasyExcel parses the sheet row by row (SAX), so rows are handed over without building the whole sheet in memory
+        EasyExcel.read(filePath, ExcelDataReader.ExcelModel.class, new ForwardingListener(handler))
+                .sheet()
+                .doRead();
+    }
+
+    @Override
+    public String getName() {
+        return filePath;
+    }
+
+    @Override
+    public Path getFile() {
+        return Paths.get(filePath);
+    }
+
+    private static class ForwardingListener implements ReadListener<ExcelDataReader.ExcelModel> {
+        private final Consumer<ExcelDataReader.ExcelModel> handler;
+
+        ForwardingListener(Consumer<ExcelDataReader.ExcelModel> handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void invoke(ExcelDataReader.ExcelModel data, AnalysisContext context) {
+            handler.accept(data);
+        }
+
+        // This method is called after all data parsing is complete
+        @Override
+        public void doAfterAllAnalysed(AnalysisContext context) {
+        }
+    }
+}
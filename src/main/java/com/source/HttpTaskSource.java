@@ -0,0 +1,140 @@
+package com.source;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.utils.ExcelDataReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Reads the rows from a dashboard server (/api/tasks) instead of the workbook, so a window does no parsing of its own
+// Pages are buffered and only handed on once all of them came from the same snapshot version;
+// if the server publishes a new snapshot in the middle, the read starts over (up to MAX_ATTEMPTS times)
+public class HttpTaskSource implements TaskSource {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final String baseUrl;
+    private final int pageSize;
+    private final int timeoutMillis;
+
+    // ETag of the last /api/version answer, sent back as If-None-Match
+    private volatile String lastEtag;
+
+    public HttpTaskSource(String baseUrl, int pageSize, int timeoutMillis) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.pageSize = pageSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void read(Consumer<ExcelDataReader.ExcelModel> handler) throws IOException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            List<ExcelDataReader.ExcelModel> rows = readAllPages();
+            if (rows != null) {
+                rows.forEach(handler);
+                return;
+            }
+        }
+        throw new IOException("Data on " + baseUrl + " kept changing while it was read");
+    }
+
+    // All rows of one snapshot version, or null if the version changed between pages
+    private List<ExcelDataReader.ExcelModel> readAllPages() throws IOException {
+        List<ExcelDataReader.ExcelModel> rows = new ArrayList<>();
+        Long version = null;
+        Field[] fields = null;
+        for (int page = 0; ; page++) {
+            JSONObject body = JSONUtil.parseObj(get("/api/tasks?page=" + page + "&size=" + pageSize));
+            long pageVersion = body.getLong("version");
+            if (version == null) {
+                version = pageVersion;
+                fields = TaskColumns.resolve(body.getJSONArray("columns").toArray(new String[0]));
+            } else if (version != pageVersion) {
+                return null;
+            }
+
+            JSONArray pageRows = body.getJSONArray("rows");
+            for (int i = 0; i < pageRows.size(); i++) {
+                JSONArray values = pageRows.getJSONArray(i);
+                ExcelDataReader.ExcelModel model = new ExcelDataReader.ExcelModel();
+                int columns = Math.min(values.size(), fields.length);
+                for (int column = 0; column < columns; column++) {
+                    TaskColumns.set(model, fields[column], values.getStr(column));
+                }
+                rows.add(model);
+            }
+            if ((long) (page + 1) * pageSize >= body.getLong("total")) {
+                return rows;
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return baseUrl;
+    }
+
+    // The server's snapshot version; a 304 answer keeps the previous one. Null while the server is unreachable
+    @Override
+    public String getVersion() {
+        try {
+            HttpURLConnection connection = open("/api/version", lastEtag);
+            try {
+                int status = connection.getResponseCode();
+                if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    return lastEtag;
+                }
+                if (status != HttpURLConnection.HTTP_OK) {
+                    return null;
+                }
+                lastEtag = connection.getHeaderField("ETag");
+                return lastEtag;
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = open(path, null);
+        try {
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("GET " + baseUrl + path + " returned " + status);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String path, String etag) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setRequestProperty("Accept", "application/json");
+        if (etag != null) {
+            connection.setRequestProperty("If-None-Match", etag);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,72 @@
+package com.source;
+
+import com.utils.ExcelDataReader;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+// Reads task rows from a database (for example the local H2 replica)
+// The query must return columns named like the workbook headers; rows are streamed with a fetch size instead of loaded at once
+public class JdbcTaskSource implements TaskSource {
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String query;
+    private final int fetchSize;
+
+    public JdbcTaskSource(String url, String user, String password, String query, int fetchSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.query = query;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void read(Consumer<ExcelDataReader.ExcelModel> handler) throws IOException {
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            // Some drivers (PostgreSQL for example) only honour the fetch size inside a transaction
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+
+            try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+
+                try (ResultSet resultSet = statement.executeQuery(query)) {
+                    ResultSetMetaData metaData = resultSet.getMetaData();
+                    String[] labels = new String[metaData.getColumnCount()];
+                    for (int i = 0; i < labels.length; i++) {
+                        labels[i] = metaData.getColumnLabel(i + 1);
+                    }
+                    Field[] fields = TaskColumns.resolve(labels);
+
+                    while (resultSet.next()) {
+                        ExcelDataReader.ExcelModel model = new ExcelDataReader.ExcelModel();
+                        for (int i = 0; i < fields.length; i++) {
+                            if (fields[i] != null) {
+                                TaskColumns.set(model, fields[i], resultSet.getString(i + 1));
+                            }
+                        }
+                        handler.accept(model);
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read tasks from " + url, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return url;
+    }
+}
@@ -0,0 +1,79 @@
+package com.source;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.utils.ExcelDataReader;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Column name -> ExcelModel field mapping shared by the non-Excel adapters
+// The names come from the @ExcelProperty annotations so CSV headers and database columns match the workbook headers
+public final class TaskColumns {
+
+    private static final Map<String, Field> FIELDS_BY_COLUMN = new LinkedHashMap<>();
+
+    // Workbook header names, in ExcelModel order
+    private static final List<String> HEADERS = new ArrayList<>();
+
+    static {
+        for (Field field : ExcelDataReader.ExcelModel.class.getDeclaredFields()) {
+            ExcelProperty property = field.getAnnotation(ExcelProperty.class);
+            if (property != null && property.value().length > 0) {
+                field.setAccessible(true);
+                FIELDS_BY_COLUMN.put(normalize(property.value()[0]), field);
+                HEADERS.add(property.value()[0]);
+            }
+        }
+    }
+
+    private TaskColumns() {
+    }
+
+    // Resolve the header row of a source into fields; unknown columns map to null and are skipped
+    public static Field[] resolve(String[] headers) {
+        Field[] fields = new Field[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            fields[i] = headers[i] == null ? null : FIELDS_BY_COLUMN.get(normalize(headers[i]));
+        }
+        return fields;
+    }
+
+    // Header names in ExcelModel order, for tools that write files the adapters can read back
+    public static String[] headers() {
+        return HEADERS.toArray(new String[0]);
+    }
+
+    // Read a single cell value from the model
+    public static String get(ExcelDataReader.ExcelModel model, Field field) {
+        try {
+            return (String) field.get(model);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read column " + field.getName(), e);
+        }
+    }
+
+    // Set a single cell value on the model, treating blank cells like EasyExcel does (null)
+    public static void set(ExcelDataReader.ExcelModel model, Field field, String value) {
+        if (field == null) {
+            return;
+        }
+        try {
+            field.set(model, value == null || value.isEmpty() ? null : value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot set column " + field.getName(), e);
+        }
+    }
+
+    // Header matching ignores case and surrounding whitespace (and a UTF-8 BOM on the first header)
+    private static String normalize(String header) {
+        String name = header.trim();
+        if (!name.isEmpty() && name.charAt(0) == '\uFEFF') {
+            name = name.substring(1).trim();
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
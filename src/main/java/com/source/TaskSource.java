@@ -0,0 +1,38 @@
+package com.source;
+
+import com.utils.ExcelDataReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+// A place task rows can be loaded from (xlsx workbook, CSV export, database, ...)
+// Every adapter maps its rows onto ExcelModel so they all feed the same ingestion pipeline in ExcelDataReader
+public interface TaskSource {
+
+    // Stream every row of the source into the handler, in source order
+    void read(Consumer<ExcelDataReader.ExcelModel> handler) throws IOException;
+
+    // Short display name used in logs and messages
+    String getName();
+
+    // The single file behind this source, or null (database, directory, several files)
+    default Path getFile() {
+        return null;
+    }
+
+    // Cheap identity of the current data (size and modification time of the file by default), used to skip
+    // a refresh when nothing changed; null when unknown, the source is then read on every refresh
+    default String getVersion() {
+        Path file = getFile();
+        if (file == null) {
+            return null;
+        }
+        try {
+            return Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.source;
+
+import com.utils.DashboardConfig;
+
+import java.nio.file.Paths;
+import java.util.Locale;
+
+// Creates the configured TaskSource
+//   source.type = xlsx | csv | jdbc | follow | http  (default: chosen from the file extension of source.path)
+//   source.path = data file, defaults to data.xlsx in the working directory
+//   source.jdbc.url / user / password / query / fetchSize for the jdbc type
+//   source.dir / source.follow.settleMillis for the follow type (export drop directory)
+//   source.url / source.http.pageSize / source.http.timeoutMillis for the http type (a dashboard server)
+public final class TaskSources {
+    public static final String DEFAULT_FILE = "data.xlsx";
+    private static final String DEFAULT_QUERY = "SELECT * FROM tasks";
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final String DEFAULT_DROP_DIR = "drop";
+    private static final long DEFAULT_SETTLE_MILLIS = 1000;
+    private static final String DEFAULT_URL = "http://localhost:8090";
+
+    private TaskSources() {
+    }
+
+    public static TaskSource fromConfig(DashboardConfig config) {
+        String path = config.getString("source.path",
+                Paths.get(System.getProperty("user.dir"), DEFAULT_FILE).toString());
+        String type = config.getString("source.type", "").toLowerCase(Locale.ROOT);
+
+        switch (type) {
+            case "":
+                return forPath(path);
+            case "xlsx":
+            case "xls":
+            case "excel":
+                return new ExcelTaskSource(path);
+            case "csv":
+                return new CsvTaskSource(path);
+            case "jdbc":
+                return new JdbcTaskSource(
+                        config.getString("source.jdbc.url", "jdbc:h2:./data"),
+                        config.getString("source.jdbc.user", ""),
+                        config.getString("source.jdbc.password", ""),
+                        config.getString("source.jdbc.query", DEFAULT_QUERY),
+                        config.getInt("source.jdbc.fetchSize", DEFAULT_FETCH_SIZE));
+            case "follow":
+                return new DirectoryFollower(
+                        Paths.get(config.getString("source.dir",
+                                Paths.get(System.getProperty("user.dir"), DEFAULT_DROP_DIR).toString())),
+                        config.getLong("source.follow.settleMillis", DEFAULT_SETTLE_MILLIS));
+            case "http":
+                return new HttpTaskSource(
+                        config.getString("source.url", DEFAULT_URL),
+                        config.getInt("source.http.pageSize", 5000),
+                        config.getInt("source.http.timeoutMillis", 10_000));
+            default:
+                throw new IllegalArgumentException("Unknown source.type: " + type);
+        }
+    }
+
+    // Pick the adapter for a data file from its extension
+    public static TaskSource forPath(String path) {
+        if (path.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return new CsvTaskSource(path);
+        }
+        return new ExcelTaskSource(path);
+    }
+}
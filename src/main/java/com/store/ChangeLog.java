@@ -0,0 +1,390 @@
+package com.store;
+
+import com.utils.DashboardConfig;
+import com.utils.ExcelDataReader;
+import com.utils.TaskIndex;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only log of the row changes between refreshes, keyed by DocumentSerial (or reference number)
+// Every refresh is diffed against the state after the previous one; rows are compared by their fingerprint
+// only, so an unchanged row costs one hash lookup and the log grows with the number of changed rows
+//
+// Record layout (big endian):
+//   int length (of the rest), byte kind, long refreshSeq, long time, long fingerprint,
+//   utf key, utf oldStatus, utf newStatus, utf documentType        -- "" stands for null
+// A refresh writes its records in one append, so a crash can only leave a torn last record, which is dropped on open
+public class ChangeLog {
+    public enum Kind {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Path file;
+
+    // State of every task after the last logged refresh
+    private final Map<String, TaskState> current = new HashMap<>();
+
+    private long lastSeq;
+    // Keys seen by the refresh being recorded; kept between refreshes so its arrays are not allocated again
+    private final TaskIndex seenKeys = new TaskIndex();
+
+    public ChangeLog(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long validLength = scan(record -> {
+            apply(current, record);
+            lastSeq = Math.max(lastSeq, record.refreshSeq);
+            return true;
+        });
+        if (Files.isRegularFile(file) && Files.size(file) > validLength) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    // changelog.enabled (default true) and changelog.file (default .dashboard-history/changes.log in the working directory)
+    public static ChangeLog fromConfig(DashboardConfig config) {
+        if (!config.getBoolean("changelog.enabled", true)) {
+            return null;
+        }
+        try {
+            return new ChangeLog(Paths.get(config.getString("changelog.file",
+                    Paths.get(System.getProperty("user.dir"), ".dashboard-history", "changes.log").toString())));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Diff the data of a refresh against the previous one and append the changes; returns the number of changes
+    public synchronized int record(ExcelDataReader reader) {
+        long seq = lastSeq + 1;
+        long now = System.currentTimeMillis();
+        List<Change> changes = new ArrayList<>();
+
+        int matched = 0;
+        List<ExcelDataReader.TaskData> tasks = reader.getTaskList();
+        TaskIndex seen = seenKeys;
+        seen.clear();
+        for (ExcelDataReader.TaskData task : tasks) {
+            String key = ExcelDataReader.taskKey(task.getDocumentSerial(), task.getReferenceNumber());
+            if (key == null || seen.putIfAbsent(key, 0) >= 0) {
+                continue;
+            }
+            TaskState previous = current.get(key);
+            if (previous == null) {
+                changes.add(new Change(Kind.INSERT, seq, now, task.getFingerprint(), key,
+                        null, task.getStatus(), task.getDocumentType()));
+                continue;
+            }
+            matched++;
+            if (previous.fingerprint != task.getFingerprint()) {
+                changes.add(new Change(Kind.UPDATE, seq, now, task.getFingerprint(), key,
+                        previous.status, task.getStatus(), task.getDocumentType()));
+            }
+        }
+
+        // Every previous key was seen again, so nothing was deleted and the state does not need to be walked
+        if (matched < current.size()) {
+            for (TaskState previous : current.values()) {
+                if (seen.get(previous.key) < 0) {
+                    changes.add(new Change(Kind.DELETE, seq, now, 0, previous.key,
+                            previous.status, null, previous.documentType));
+                }
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        try {
+            append(changes);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+        for (Change change : changes) {
+            apply(current, change);
+        }
+        lastSeq = seq;
+        return changes.size();
+    }
+
+    // Sequence number of the last logged refresh, 0 when the log is empty
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    // Rebuild the state of every task as it was after the given refresh
+    public synchronized Map<String, TaskState> replay(long uptoSeq) {
+        Map<String, TaskState> state = new HashMap<>();
+        scanQuietly(record -> {
+            if (record.refreshSeq > uptoSeq) {
+                return false;
+            }
+            apply(state, record);
+            return true;
+        });
+        return state;
+    }
+
+    // Every change of one task, oldest first
+    public synchronized List<Change> getChanges(String key) {
+        List<Change> result = new ArrayList<>();
+        scanQuietly(record -> {
+            if (record.key.equals(key)) {
+                result.add(record);
+            }
+            return true;
+        });
+        return result;
+    }
+
+    // Milliseconds one task has spent in each status, up to now for the status it is still in
+    public synchronized Map<String, Long> getTimeInState(String key) {
+        Map<String, Long> durations = new LinkedHashMap<>();
+        String status = null;
+        long since = 0;
+        for (Change change : getChanges(key)) {
+            if (status != null && !status.equals(change.newStatus)) {
+                durations.merge(status, change.time - since, Long::sum);
+            }
+            if (status == null || !status.equals(change.newStatus)) {
+                status = change.newStatus;
+                since = change.time;
+            }
+        }
+        if (status != null) {
+            durations.merge(status, System.currentTimeMillis() - since, Long::sum);
+        }
+        return durations;
+    }
+
+    // Average milliseconds spent in a status before moving on, over all tasks that left it ("all" for every type)
+    public synchronized Map<String, Long> getAverageTimeInState(String documentType) {
+        Map<String, TaskState> state = new HashMap<>();
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        scanQuietly(record -> {
+            TaskState previous = state.get(record.key);
+            if (record.kind != Kind.DELETE && previous != null && previous.status != null
+                    && !previous.status.equals(record.newStatus)
+                    && ("all".equals(documentType) || documentType.equals(previous.documentType))) {
+                long[] total = totals.computeIfAbsent(previous.status, status -> new long[2]);
+                total[0] += record.time - previous.since;
+                total[1]++;
+            }
+            apply(state, record);
+            return true;
+        });
+        Map<String, Long> averages = new LinkedHashMap<>();
+        totals.forEach((status, total) -> averages.put(status, total[0] / total[1]));
+        return averages;
+    }
+
+    private static void apply(Map<String, TaskState> state, Change change) {
+        if (change.kind == Kind.DELETE) {
+            state.remove(change.key);
+            return;
+        }
+        TaskState previous = state.get(change.key);
+        boolean sameStatus = previous != null && previous.status != null && previous.status.equals(change.newStatus);
+        state.put(change.key, new TaskState(change.key, change.newStatus, change.documentType,
+                change.fingerprint, sameStatus ? previous.since : change.time));
+    }
+
+    private void append(List<Change> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(changes.size() * 64);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(record);
+        DataOutputStream frame = new DataOutputStream(bytes);
+        for (Change change : changes) {
+            record.reset();
+            out.writeByte(change.kind.ordinal());
+            out.writeLong(change.refreshSeq);
+            out.writeLong(change.time);
+            out.writeLong(change.fingerprint);
+            out.writeUTF(change.key);
+            out.writeUTF(nullToEmpty(change.oldStatus));
+            out.writeUTF(nullToEmpty(change.newStatus));
+            out.writeUTF(nullToEmpty(change.documentType));
+            frame.writeInt(record.size());
+            record.writeTo(frame);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private interface RecordVisitor {
+        // Return false to stop reading
+        boolean visit(Change change);
+    }
+
+    private void scanQuietly(RecordVisitor visitor) {
+        try {
+            scan(visitor);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Read the records in order; returns the length of the log up to the last complete record
+    private long scan(RecordVisitor visitor) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        // Streamed record by record: the log only grows, and a mapping of it would keep the file from being
+        // truncated or replaced on Windows until it is collected
+        long size = Files.size(file);
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (size - position >= 4) {
+                int length = in.readInt();
+                if (length <= 0 || length > size - position - 4) {
+                    return position;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                position += 4 + length;
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                Change change = new Change(Kind.values()[buffer.get()], buffer.getLong(), buffer.getLong(),
+                        buffer.getLong(), readUtf(buffer), emptyToNull(readUtf(buffer)),
+                        emptyToNull(readUtf(buffer)), emptyToNull(readUtf(buffer)));
+                if (!visitor.visit(change)) {
+                    return position;
+                }
+            }
+            return position;
+        }
+    }
+
+    // Strings are written with writeUTF; the logged values (serials, statuses, type names) are plain text,
+    // so standard UTF-8 decoding gives the same result as modified UTF-8
+    private static String readUtf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    // One logged change; oldStatus is null for inserts, newStatus is null for deletes
+    public static class Change {
+        private final Kind kind;
+        private final long refreshSeq;
+        private final long time;
+        private final long fingerprint;
+        private final String key;
+        private final String oldStatus;
+        private final String newStatus;
+        private final String documentType;
+
+        Change(Kind kind, long refreshSeq, long time, long fingerprint, String key,
+               String oldStatus, String newStatus, String documentType) {
+            this.kind = kind;
+            this.refreshSeq = refreshSeq;
+            this.time = time;
+            this.fingerprint = fingerprint;
+            this.key = key;
+            this.oldStatus = oldStatus;
+            this.newStatus = newStatus;
+            this.documentType = documentType;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getRefreshSeq() {
+            return refreshSeq;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getOldStatus() {
+            return oldStatus;
+        }
+
+        public String getNewStatus() {
+            return newStatus;
+        }
+
+        public String getDocumentType() {
+            return documentType;
+        }
+
+        // True when the status itself changed, not only another field of the row
+        public boolean isTransition() {
+            return oldStatus == null ? newStatus != null : !oldStatus.equals(newStatus);
+        }
+    }
+
+    // State of one task at some refresh; since = time it entered its current status
+    public static class TaskState {
+        private final String key;
+        private final String status;
+        private final String documentType;
+        private final long fingerprint;
+        private final long since;
+
+        TaskState(String key, String status, String documentType, long fingerprint, long since) {
+            this.key = key;
+            this.status = status;
+            this.documentType = documentType;
+            this.fingerprint = fingerprint;
+            this.since = since;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getDocumentType() {
+            return documentType;
+        }
+
+        public long getSince() {
+            return since;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.store;
+
+import com.source.TaskSource;
+import com.utils.DashboardConfig;
+import com.utils.ExcelDataReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+// Binary snapshot of the parsed and aggregated data of one source file
+// Startup reads the snapshot instead of parsing the workbook; a snapshot is only trusted as current
+// when size, modification time and CRC32 of the source file (and the working date) still match
+//
+// Layout (big endian):
+//   int magic, int version, long sourceSize, long sourceModified, long sourceCrc, long createdAt
+//   int stringCount, (int byteLength, utf-8 bytes)*        -- every distinct string once
+//   int currentDate                                           -- string references from here on, -1 = null
+//   stats currentStats, int typeCount (int type, stats)*, int dateCount (int date, stats)*
+//   int rowCount, (int field x 19)*
+// where stats = int entryCount, (int key, int value)*
+// Neither the snapshot nor the source is memory-mapped: on Windows a mapped file cannot be replaced or truncated
+// until the mapping is collected, which would block the exporter rewriting the workbook and the next snapshot
+public class SnapshotCache {
+    private static final int MAGIC = 0x44534E50; // "DSNP"
+    private static final int VERSION = 1;
+    private static final int FIELDS_PER_ROW = 19;
+    // Chunk of the source file checksummed at a time, one per refresh thread
+    private static final ThreadLocal<ByteBuffer> CRC_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+
+    private final Path directory;
+
+    public SnapshotCache(Path directory) {
+        this.directory = directory;
+    }
+
+    // cache.enabled (default true) and cache.dir (default .dashboard-cache in the working directory)
+    public static SnapshotCache fromConfig(DashboardConfig config) {
+        if (!config.getBoolean("cache.enabled", true)) {
+            return null;
+        }
+        return new SnapshotCache(Paths.get(config.getString("cache.dir",
+                Paths.get(System.getProperty("user.dir"), ".dashboard-cache").toString())));
+    }
+
+    // Data from the last snapshot of the file, even if the file has changed since; null if there is none
+    public ExcelDataReader loadLastKnown(TaskSource source) {
+        Path snapshot = snapshotPath(source.getFile());
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        try {
+            return read(snapshot, source, null);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable snapshot " + snapshot + ": " + e);
+            return null;
+        }
+    }
+
+    // Use the snapshot when it still matches the file, otherwise parse the file and write a new snapshot
+    public ExcelDataReader loadOrRead(TaskSource source, Supplier<ExcelDataReader> parser) {
+        Path file = source.getFile();
+        Path snapshot = snapshotPath(file);
+
+        // Taken before parsing, so a write during the parse invalidates the new snapshot
+        SourceVersion version = SourceVersion.ofQuietly(file);
+        try {
+            if (version != null && Files.isRegularFile(snapshot)) {
+                ExcelDataReader cached = read(snapshot, source, version);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable snapshot " + snapshot + ": " + e);
+        }
+
+        ExcelDataReader reader = parser.get();
+        if (version != null) {
+            save(snapshot, version, reader);
+        }
+        return reader;
+    }
+
+    private Path snapshotPath(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        String name = absolute.getFileName().toString();
+        // Same file name in different folders (branch exports) must not share a snapshot
+        return directory.resolve(name + "-" + Integer.toHexString(absolute.toString().hashCode()) + ".snap");
+    }
+
+    // Returns null when expected is given and does not match the stored version
+    private ExcelDataReader read(Path snapshot, TaskSource source, SourceVersion expected) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+        SourceVersion stored = new SourceVersion(buffer.getLong(), buffer.getLong(), buffer.getLong());
+        buffer.getLong(); // createdAt
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String currentDate = string(strings, buffer.getInt());
+        if (expected != null) {
+            // Counts of "NEW" tasks depend on the day the snapshot was taken
+            if (!stored.equals(expected) || !ExcelDataReader.getCurrentWorkingDate().equals(currentDate)) {
+                return null;
+            }
+        }
+
+        Map<String, Integer> currentStats = readStats(buffer, strings);
+        Map<String, Map<String, Integer>> documentStats = readNestedStats(buffer, strings);
+        Map<String, Map<String, Integer>> dailyStats = readNestedStats(buffer, strings);
+
+        int rowCount = buffer.getInt();
+        List<ExcelDataReader.TaskData> tasks = new ArrayList<>(rowCount);
+        String[] row = new String[FIELDS_PER_ROW];
+        for (int i = 0; i < rowCount; i++) {
+            for (int field = 0; field < FIELDS_PER_ROW; field++) {
+                row[field] = string(strings, buffer.getInt());
+            }
+            tasks.add(new ExcelDataReader.TaskData(row[0], row[1], row[2], row[3], row[4], row[5], row[6],
+                    row[7], row[8], row[9], row[10], row[11], row[12], row[13], row[14], row[15],
+                    row[16], row[17], row[18]));
+        }
+
+        return ExcelDataReader.restore(source, tasks, currentStats, documentStats, dailyStats);
+    }
+
+    private void save(Path snapshot, SourceVersion version, ExcelDataReader reader) {
+        // Collect the string table first; repeated values (types, statuses, dates, handlers) are stored once
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        List<ExcelDataReader.TaskData> tasks = reader.getTaskList();
+        for (ExcelDataReader.TaskData task : tasks) {
+            for (String value : fields(task)) {
+                intern(stringIds, value);
+            }
+        }
+        intern(stringIds, reader.getCurrentDate());
+        reader.getCurrentStats().keySet().forEach(key -> intern(stringIds, key));
+        internNested(stringIds, reader.getDocumentStats());
+        internNested(stringIds, reader.getAllDailyStats());
+
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshot.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(version.size);
+                out.writeLong(version.modified);
+                out.writeLong(version.crc);
+                out.writeLong(System.currentTimeMillis());
+
+                out.writeInt(stringIds.size());
+                for (String value : stringIds.keySet()) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+
+                out.writeInt(stringIds.get(reader.getCurrentDate()));
+                writeStats(out, stringIds, reader.getCurrentStats());
+                writeNestedStats(out, stringIds, reader.getDocumentStats());
+                writeNestedStats(out, stringIds, reader.getAllDailyStats());
+
+                out.writeInt(tasks.size());
+                for (ExcelDataReader.TaskData task : tasks) {
+                    for (String value : fields(task)) {
+                        out.writeInt(value == null ? -1 : stringIds.get(value));
+                    }
+                }
+            }
+            // A snapshot that is open elsewhere cannot be replaced on Windows; the next refresh retries
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write snapshot " + snapshot + ": " + e);
+        }
+    }
+
+    // Field order matches the TaskData constructor
+    private static String[] fields(ExcelDataReader.TaskData task) {
+        return task.toFields();
+    }
+
+    private static void intern(Map<String, Integer> stringIds, String value) {
+        if (value != null) {
+            stringIds.putIfAbsent(value, stringIds.size());
+        }
+    }
+
+    private static void internNested(Map<String, Integer> stringIds, Map<String, Map<String, Integer>> nested) {
+        nested.forEach((key, stats) -> {
+            intern(stringIds, key);
+            stats.keySet().forEach(statKey -> intern(stringIds, statKey));
+        });
+    }
+
+    private static void writeStats(DataOutputStream out, Map<String, Integer> stringIds,
+                                   Map<String, Integer> stats) throws IOException {
+        out.writeInt(stats.size());
+        for (Map.Entry<String, Integer> entry : stats.entrySet()) {
+            out.writeInt(stringIds.get(entry.getKey()));
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static void writeNestedStats(DataOutputStream out, Map<String, Integer> stringIds,
+                                         Map<String, Map<String, Integer>> nested) throws IOException {
+        out.writeInt(nested.size());
+        for (Map.Entry<String, Map<String, Integer>> entry : nested.entrySet()) {
+            out.writeInt(stringIds.get(entry.getKey()));
+            writeStats(out, stringIds, entry.getValue());
+        }
+    }
+
+    private static Map<String, Integer> readStats(ByteBuffer buffer, String[] strings) {
+        int size = buffer.getInt();
+        Map<String, Integer> stats = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            stats.put(strings[buffer.getInt()], buffer.getInt());
+        }
+        return stats;
+    }
+
+    private static Map<String, Map<String, Integer>> readNestedStats(ByteBuffer buffer, String[] strings) {
+        int size = buffer.getInt();
+        Map<String, Map<String, Integer>> nested = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = strings[buffer.getInt()];
+            nested.put(key, readStats(buffer, strings));
+        }
+        return nested;
+    }
+
+    private static String string(String[] strings, int id) {
+        return id < 0 ? null : strings[id];
+    }
+
+    // Identity of a source file version
+    static class SourceVersion {
+        private final long size;
+        private final long modified;
+        private final long crc;
+
+        SourceVersion(long size, long modified, long crc) {
+            this.size = size;
+            this.modified = modified;
+            this.crc = crc;
+        }
+
+        static SourceVersion of(Path file) throws IOException {
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = CRC_BUFFER.get();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer.clear();
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    crc.update(buffer);
+                    buffer.clear();
+                }
+            }
+            return new SourceVersion(size, modified, crc.getValue());
+        }
+
+        static SourceVersion ofQuietly(Path file) {
+            try {
+                return of(file);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof SourceVersion)) {
+                return false;
+            }
+            SourceVersion version = (SourceVersion) other;
+            return size == version.size && modified == version.modified && crc == version.crc;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(crc);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.store;
+
+import com.utils.DashboardConfig;
+import com.utils.ExcelDataReader;
+import com.utils.TaskDates;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Local history of daily aggregates per document type, so trends survive the rotation of the upstream workbook
+// One append-only segment file per month (yyyy-MM.seg) of fixed size records:
+//   int epochDay, short typeId, byte metric, byte unused, int count, long writtenAt
+// The last record for a (day, type, metric) wins. A refresh only appends values that changed,
+// and a month's segment is compacted (rewritten with the latest values only) once the month is over
+// Document type names get stable ids through types.txt (line number = id)
+public class TimeSeriesStore {
+    private static final int RECORD_SIZE = 20;
+    private static final String TYPES_FILE = "types.txt";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // Compact the running month when it holds this many records per distinct value
+    private static final int COMPACT_RATIO = 4;
+
+    public enum Metric {
+        TOTAL, ONGOING, COMPLETED, WITHIN_TAT, OVER_TAT
+    }
+
+    // Metric.values() copies the array on every call
+    private static final Metric[] METRICS = Metric.values();
+
+    private final Path directory;
+    private final List<String> types = new ArrayList<>();
+    private final Map<String, Integer> typeIds = new HashMap<>();
+
+    // Latest value per key, grouped by month; key = epochDay << 32 | typeId << 8 | metric
+    private final Map<YearMonth, Map<Long, Integer>> months = new TreeMap<>();
+
+    // Number of records in each segment file, to decide when to compact
+    private final Map<YearMonth, Integer> recordCounts = new HashMap<>();
+
+    // Day of each date string seen in the data; the same few dates come back on every refresh
+    private final Map<String, LocalDate> parsedDays = new HashMap<>();
+
+    public TimeSeriesStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        loadTypes();
+        loadSegments();
+    }
+
+    // history.enabled (default true) and history.dir (default .dashboard-history in the working directory)
+    public static TimeSeriesStore fromConfig(DashboardConfig config) {
+        if (!config.getBoolean("history.enabled", true)) {
+            return null;
+        }
+        try {
+            return new TimeSeriesStore(Paths.get(config.getString("history.dir",
+                    Paths.get(System.getProperty("user.dir"), ".dashboard-history").toString())));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Record the daily aggregates of the current data; returns the number of values that changed
+    // Days that are no longer in the data (rotated out of the workbook) keep their stored values; on a day that is
+    // still in the data, a document type without tasks any more (reclassified, corrected export) goes back to 0
+    public synchronized int append(ExcelDataReader reader) {
+        Map<LocalDate, Map<String, int[]>> daily = aggregate(reader.getDayCounts());
+        long now = System.currentTimeMillis();
+
+        Map<YearMonth, ByteBuffer> pending = new TreeMap<>();
+        // Type ids with tasks on each day in the data, indexed by epoch day - firstDay
+        long firstDay = Long.MAX_VALUE;
+        long lastDay = Long.MIN_VALUE;
+        for (LocalDate day : daily.keySet()) {
+            firstDay = Math.min(firstDay, day.toEpochDay());
+            lastDay = Math.max(lastDay, day.toEpochDay());
+        }
+        BitSet[] presentTypes = new BitSet[daily.isEmpty() ? 0 : (int) (lastDay - firstDay + 1)];
+        int changed = 0;
+        for (Map.Entry<LocalDate, Map<String, int[]>> day : daily.entrySet()) {
+            YearMonth month = YearMonth.from(day.getKey());
+            Map<Long, Integer> values = months.computeIfAbsent(month, key -> new HashMap<>());
+            BitSet dayTypes = new BitSet();
+            presentTypes[(int) (day.getKey().toEpochDay() - firstDay)] = dayTypes;
+
+            for (Map.Entry<String, int[]> type : day.getValue().entrySet()) {
+                int typeId = typeId(type.getKey());
+                dayTypes.set(typeId);
+                int[] counts = type.getValue();
+                for (Metric metric : METRICS) {
+                    long key = key(day.getKey().toEpochDay(), typeId, metric);
+                    Integer previous = values.get(key);
+                    if (previous == null || previous != counts[metric.ordinal()]) {
+                        values.put(key, counts[metric.ordinal()]);
+                        writeRecord(pendingBuffer(pending, month), key, counts[metric.ordinal()], now);
+                        changed++;
+                    }
+                }
+            }
+        }
+
+        // Stored values of the days in the data that the data no longer has
+        Set<YearMonth> presentMonths = new TreeSet<>();
+        daily.keySet().forEach(day -> presentMonths.add(YearMonth.from(day)));
+        for (YearMonth month : presentMonths) {
+            for (Map.Entry<Long, Integer> value : months.get(month).entrySet()) {
+                long key = value.getKey();
+                long day = (key >>> 32) - firstDay;
+                BitSet dayTypes = day >= 0 && day < presentTypes.length ? presentTypes[(int) day] : null;
+                if (value.getValue() != 0 && dayTypes != null && !dayTypes.get((int) (key >>> 8) & 0xFFFFFF)) {
+                    value.setValue(0);
+                    writeRecord(pendingBuffer(pending, month), key, 0, now);
+                    changed++;
+                }
+            }
+        }
+
+        for (Map.Entry<YearMonth, ByteBuffer> entry : pending.entrySet()) {
+            appendSegment(entry.getKey(), entry.getValue());
+        }
+
+        YearMonth current = YearMonth.now();
+        Integer records = recordCounts.get(current);
+        Map<Long, Integer> currentValues = months.get(current);
+        if (records != null && currentValues != null && records > COMPACT_RATIO * currentValues.size()) {
+            compact(current);
+        }
+        return changed;
+    }
+
+    // Buffer of the records to append to a month's segment, with room for one more record
+    private static ByteBuffer pendingBuffer(Map<YearMonth, ByteBuffer> pending, YearMonth month) {
+        ByteBuffer buffer = pending.get(month);
+        if (buffer == null || buffer.remaining() < RECORD_SIZE) {
+            buffer = grow(buffer);
+            pending.put(month, buffer);
+        }
+        return buffer;
+    }
+
+    // Monthly sums of a metric for one document type ("all" for every type), oldest month first
+    public synchronized Map<YearMonth, Integer> getMonthlyTotals(String documentType, Metric metric,
+                                                                 YearMonth from, YearMonth to) {
+        Integer typeId = "all".equals(documentType) ? null : typeIds.get(documentType);
+        Map<YearMonth, Integer> totals = new LinkedHashMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            int total = 0;
+            Map<Long, Integer> values = months.get(month);
+            if (values != null && ("all".equals(documentType) || typeId != null)) {
+                for (Map.Entry<Long, Integer> entry : values.entrySet()) {
+                    long key = entry.getKey();
+                    if ((key & 0xFF) == metric.ordinal()
+                            && (typeId == null || ((key >>> 8) & 0xFFFF) == typeId)) {
+                        total += entry.getValue();
+                    }
+                }
+            }
+            totals.put(month, total);
+        }
+        return totals;
+    }
+
+    // Rewrite a month's segment with only the latest value of each key
+    public synchronized void compact(YearMonth month) {
+        Map<Long, Integer> values = months.get(month);
+        if (values == null) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(values.size() * RECORD_SIZE);
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, Integer> entry : values.entrySet()) {
+            writeRecord(buffer, entry.getKey(), entry.getValue(), now);
+        }
+        buffer.flip();
+
+        Path segment = segmentPath(month);
+        Path temp = directory.resolve(segment.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(temp, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordCounts.put(month, values.size());
+        } catch (IOException e) {
+            // Still open elsewhere on Windows (a backup or a virus scanner); the next compaction retries
+            System.err.println("Could not compact " + segment + ": " + e);
+        }
+    }
+
+    // Per day and document type: counts indexed by Metric
+    // The reader keeps the counts up to date as rows come and go, so this is a walk over days and types, not rows;
+    // date spellings that parse to the same day are added up
+    private Map<LocalDate, Map<String, int[]>> aggregate(
+            Map<String, Map<String, ExcelDataReader.DayCounts>> dayCounts) {
+        Map<LocalDate, Map<String, int[]>> daily = new HashMap<>();
+        for (Map.Entry<String, Map<String, ExcelDataReader.DayCounts>> day : dayCounts.entrySet()) {
+            LocalDate date = parsedDays.computeIfAbsent(day.getKey(), TaskDates::parse);
+            if (date == null) {
+                continue;
+            }
+            for (Map.Entry<String, ExcelDataReader.DayCounts> type : day.getValue().entrySet()) {
+                ExcelDataReader.DayCounts source = type.getValue();
+                // Every task of the type on that day was replaced; the zeroing below records it
+                if (source.getTotal() == 0) {
+                    continue;
+                }
+                int[] counts = daily.computeIfAbsent(date, key -> new HashMap<>())
+                        .computeIfAbsent(type.getKey(), key -> new int[METRICS.length]);
+                counts[Metric.TOTAL.ordinal()] += source.getTotal();
+                counts[Metric.ONGOING.ordinal()] += source.getOngoing();
+                counts[Metric.COMPLETED.ordinal()] += source.getCompleted();
+                counts[Metric.WITHIN_TAT.ordinal()] += source.getWithinTat();
+                counts[Metric.OVER_TAT.ordinal()] += source.getOverTat();
+            }
+        }
+        return daily;
+    }
+
+    private int typeId(String type) {
+        Integer id = typeIds.get(type);
+        if (id != null) {
+            return id;
+        }
+        id = types.size();
+        types.add(type);
+        typeIds.put(type, id);
+        try {
+            Files.write(directory.resolve(TYPES_FILE), (type + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return id;
+    }
+
+    private void loadTypes() throws IOException {
+        Path file = directory.resolve(TYPES_FILE);
+        if (Files.isRegularFile(file)) {
+            for (String type : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!type.isEmpty()) {
+                    typeIds.put(type, types.size());
+                    types.add(type);
+                }
+            }
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                String name = segment.getFileName().toString();
+                YearMonth month;
+                try {
+                    month = YearMonth.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+
+                Map<Long, Integer> values = months.computeIfAbsent(month, key -> new HashMap<>());
+                // Read into the heap rather than mapped, so compaction can replace the file right away on Windows
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+                // A torn last record (crash while appending) is ignored
+                int records = buffer.capacity() / RECORD_SIZE;
+                for (int i = 0; i < records; i++) {
+                    long epochDay = buffer.getInt();
+                    int typeId = buffer.getShort() & 0xFFFF;
+                    int metric = buffer.get();
+                    buffer.get();
+                    int count = buffer.getInt();
+                    buffer.getLong();
+                    values.put((epochDay << 32) | ((long) typeId << 8) | metric, count);
+                }
+                recordCounts.put(month, records);
+            }
+        }
+
+        // Finished months only need their latest values
+        YearMonth current = YearMonth.now();
+        for (YearMonth month : new ArrayList<>(months.keySet())) {
+            if (month.isBefore(current) && recordCounts.getOrDefault(month, 0) > months.get(month).size()) {
+                compact(month);
+            }
+        }
+    }
+
+    private void appendSegment(YearMonth month, ByteBuffer buffer) {
+        buffer.flip();
+        int records = buffer.remaining() / RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(segmentPath(month), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            recordCounts.merge(month, records, Integer::sum);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path segmentPath(YearMonth month) {
+        return directory.resolve(month + SEGMENT_SUFFIX);
+    }
+
+    private static long key(long epochDay, int typeId, Metric metric) {
+        return (epochDay << 32) | ((long) typeId << 8) | metric.ordinal();
+    }
+
+    private static void writeRecord(ByteBuffer buffer, long key, int count, long writtenAt) {
+        buffer.putInt((int) (key >>> 32));
+        buffer.putShort((short) ((key >>> 8) & 0xFFFF));
+        buffer.put((byte) (key & 0xFF));
+        buffer.put((byte) 0);
+        buffer.putInt(count);
+        buffer.putLong(writtenAt);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        if (buffer == null) {
+            return ByteBuffer.allocate(256 * RECORD_SIZE);
+        }
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
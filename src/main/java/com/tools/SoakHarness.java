@@ -0,0 +1,496 @@
+package com.tools;
+
+import com.service.DataService;
+import com.source.TaskSources;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.ui.DashboardModels;
+import com.utils.DashboardConfig;
+import com.utils.DashboardSnapshot;
+import com.utils.JsonWriter;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Soak test of the real refresh pipeline: a generated workbook is rewritten every few seconds (WorkloadGenerator
+// mutate) while a DataService refreshes from it as the dashboard would. For every rewrite it records how long it took
+// until a published snapshot contained it, for every publication the time the EDT spends building the models the
+// window swaps in (cards aside: line and bar datasets and the task table of the default view), every GC pause and
+// the heap left after collections. At the end the figures are compared with the budgets; exit code 1 when one is
+// exceeded, so it can run unattended. Needs no display
+//   java -cp dashboard.jar com.tools.SoakHarness --duration 8h --interval 5 --rows 20000
+public class SoakHarness {
+    private static final String USAGE = String.join("\n",
+            "Usage: SoakHarness [options]",
+            "  --duration D          how long to run: 90s, 30m, 8h (default 8h)",
+            "  --warmup D            time before the heap baseline is taken (default 10% of the duration)",
+            "  --interval S          seconds between two rewrites of the workbook (default 5)",
+            "  --rows N              rows of the initial workbook (default 20000)",
+            "  --append N            rows added by each rewrite (default 20)",
+            "  --format xlsx|csv     file format (default xlsx)",
+            "  --seed N              generator seed (default 1)",
+            "  --max-latency MS      budget for the p99 rewrite to publish latency (default 15000)",
+            "  --max-edt MS          budget for the p99 EDT time per refresh (default 250)",
+            "  --max-gc-pause MS     budget for the longest GC pause (default 500)",
+            "  --max-heap-growth MB  budget for the heap growth after the warmup (default 64)",
+            "  --report FILE         also write the results as JSON");
+
+    // Heap left after collections is sampled this often
+    private static final long SAMPLE_SECONDS = 30;
+
+    private final Options options;
+    private final Path workDir;
+    private final Path file;
+    private final WorkloadGenerator generator;
+
+    // Rewrites not yet seen in a published snapshot: the row count they lead to and when they were done
+    private final Deque<long[]> pending = new ArrayDeque<>();
+    private final Samples latencies = new Samples();
+    private final Samples edtTimes = new Samples();
+    private final Samples gcPauses = new Samples();
+    private final List<long[]> heapSamples = new ArrayList<>();
+    private volatile long expectedRows;
+    private volatile int rewrites;
+    private volatile int publications;
+    private volatile int rewriteFailures;
+
+    SoakHarness(Options options) throws IOException {
+        this.options = options;
+        this.workDir = Files.createTempDirectory("dashboard-soak");
+        this.file = workDir.resolve("data." + options.format);
+        this.generator = new WorkloadGenerator(options.seed, LocalDate.now(), 60, 0.02, 0.2);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        try {
+            SoakHarness harness = new SoakHarness(options);
+            List<String> violations = harness.run();
+            if (!violations.isEmpty()) {
+                violations.forEach(violation -> System.err.println("FAILED: " + violation));
+                System.exit(1);
+            }
+            System.out.println("PASSED");
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    List<String> run() throws IOException, InterruptedException {
+        // The stores of the pipeline run too, but in the work directory instead of next to the real data
+        System.setProperty("dashboard.cache.dir", workDir.resolve("cache").toString());
+        System.setProperty("dashboard.history.dir", workDir.resolve("history").toString());
+        System.setProperty("dashboard.changelog.file", workDir.resolve("changes.log").toString());
+
+        generator.write(file, options.rows);
+        expectedRows = options.rows;
+        System.out.println("Soak test on " + file + ": " + options.rows + " rows, rewritten every "
+                + options.intervalSeconds + " s for " + options.durationMillis / 1000 + " s");
+
+        listenForGcPauses();
+        DataService service = new DataService(DashboardConfig.get(), TaskSources.forPath(file.toString()), null);
+        service.addListener(this::onPublished);
+        service.start();
+
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-soak");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::rewrite, options.intervalSeconds, options.intervalSeconds,
+                TimeUnit.SECONDS);
+        long start = System.currentTimeMillis();
+        executor.scheduleAtFixedRate(() -> sampleHeap(start), SAMPLE_SECONDS, SAMPLE_SECONDS, TimeUnit.SECONDS);
+
+        Thread.sleep(options.durationMillis);
+        // Lets a rewrite in progress finish (an interrupt would leave it half done) and drops the later ones
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        // Give the last rewrite the latency budget to show up
+        waitForPending(options.maxLatencyMillis);
+        service.shutdown();
+
+        List<String> violations = evaluate();
+        printReport();
+        if (options.report != null) {
+            Files.write(Paths.get(options.report), toJson(violations).getBytes(StandardCharsets.UTF_8));
+        }
+        deleteWorkDir();
+        return violations;
+    }
+
+    // Rewrite the workbook like the upstream export: some pending tasks lodged, new rows appended
+    private void rewrite() {
+        try {
+            generator.mutate(file, options.append, 0.3);
+            synchronized (pending) {
+                expectedRows += options.append;
+                pending.addLast(new long[] {expectedRows, System.currentTimeMillis()});
+            }
+            rewrites++;
+        } catch (IOException | RuntimeException e) {
+            rewriteFailures++;
+            e.printStackTrace();
+        }
+    }
+
+    // Refresh thread: rows are only ever appended, so the row count tells which rewrites a snapshot contains
+    private void onPublished(DashboardSnapshot snapshot) {
+        long now = System.currentTimeMillis();
+        publications++;
+        int rows = snapshot.getTaskList().size();
+        synchronized (pending) {
+            while (!pending.isEmpty() && pending.peekFirst()[0] <= rows) {
+                latencies.add(now - pending.removeFirst()[1]);
+            }
+        }
+
+        // What the window does on the EDT for a publication
+        SwingUtilities.invokeLater(() -> {
+            long start = System.nanoTime();
+            DashboardModels.lineDataset(snapshot, DashboardSnapshot.ALL_TYPES, null, true);
+            DashboardModels.barDataset(snapshot, DashboardSnapshot.ALL_TYPES, null, true);
+            DashboardModels.taskTableModel(snapshot, DashboardSnapshot.ALL_TYPES, null);
+            edtTimes.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
+    private void waitForPending(long maxMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + maxMillis;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private void listenForGcPauses() {
+        NotificationListener listener = (Notification notification, Object handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            // Concurrent cycles run next to the application and are no pauses
+            String name = (info.getGcName() + " " + info.getGcAction()).toLowerCase(Locale.ROOT);
+            if (!name.contains("concurrent") && !name.contains("cycles")) {
+                gcPauses.add(info.getGcInfo().getDuration());
+            }
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    // Heap in use right after the last collection of each pool: what is live, without the garbage in between
+    private void sampleHeap(long start) {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        synchronized (heapSamples) {
+            heapSamples.add(new long[] {System.currentTimeMillis() - start, used});
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "%5d s  rewrites %d  publications %d  latency p99 %d ms  edt p99 %d ms  gc max %d ms  heap %d MB",
+                (System.currentTimeMillis() - start) / 1000, rewrites, publications, latencies.percentile(99),
+                edtTimes.percentile(99), gcPauses.max(), used >> 20));
+    }
+
+    // Growth of the heap after the warmup, from a least squares line through the samples (in bytes)
+    private long heapGrowth() {
+        List<long[]> samples = new ArrayList<>();
+        synchronized (heapSamples) {
+            for (long[] sample : heapSamples) {
+                if (sample[0] >= options.warmupMillis) {
+                    samples.add(sample);
+                }
+            }
+        }
+        if (samples.size() < 2) {
+            return 0;
+        }
+        double meanT = samples.stream().mapToLong(sample -> sample[0]).average().orElse(0);
+        double meanH = samples.stream().mapToLong(sample -> sample[1]).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (long[] sample : samples) {
+            covariance += (sample[0] - meanT) * (sample[1] - meanH);
+            variance += (sample[0] - meanT) * (sample[0] - meanT);
+        }
+        double slope = variance == 0 ? 0 : covariance / variance;
+        return Math.round(slope * (samples.get(samples.size() - 1)[0] - samples.get(0)[0]));
+    }
+
+    private List<String> evaluate() {
+        List<String> violations = new ArrayList<>();
+        if (latencies.percentile(99) > options.maxLatencyMillis) {
+            violations.add("p99 rewrite to publish latency " + latencies.percentile(99) + " ms > "
+                    + options.maxLatencyMillis + " ms");
+        }
+        int unseen;
+        synchronized (pending) {
+            unseen = pending.size();
+        }
+        if (unseen > 0) {
+            violations.add(unseen + " rewrites never reached a published snapshot");
+        }
+        if (rewriteFailures > 0) {
+            violations.add(rewriteFailures + " rewrites of the workbook failed");
+        }
+        if (edtTimes.percentile(99) > options.maxEdtMillis) {
+            violations.add("p99 EDT time per refresh " + edtTimes.percentile(99) + " ms > "
+                    + options.maxEdtMillis + " ms");
+        }
+        if (gcPauses.max() > options.maxGcPauseMillis) {
+            violations.add("longest GC pause " + gcPauses.max() + " ms > " + options.maxGcPauseMillis + " ms");
+        }
+        long growthMb = heapGrowth() >> 20;
+        if (growthMb > options.maxHeapGrowthMb) {
+            violations.add("heap grew by " + growthMb + " MB after the warmup > " + options.maxHeapGrowthMb + " MB");
+        }
+        return violations;
+    }
+
+    private void printReport() {
+        System.out.println("Rewrites " + rewrites + ", publications " + publications);
+        System.out.println("Rewrite to publish latency (ms): " + latencies.summary());
+        System.out.println("EDT time per refresh (ms):       " + edtTimes.summary());
+        System.out.println("GC pauses (ms):                  " + gcPauses.summary() + ", total " + gcPauses.sum());
+        System.out.println("Heap growth after warmup:        " + (heapGrowth() >> 20) + " MB");
+    }
+
+    private String toJson(List<String> violations) {
+        JsonWriter json = new JsonWriter().beginObject()
+                .name("durationSeconds").value(options.durationMillis / 1000)
+                .name("rows").value(options.rows)
+                .name("rewrites").value(rewrites)
+                .name("publications").value(publications);
+        writeSamples(json.name("latencyMillis"), latencies);
+        writeSamples(json.name("edtMillis"), edtTimes);
+        writeSamples(json.name("gcPauseMillis"), gcPauses);
+        json.name("heapGrowthBytes").value(heapGrowth())
+                .name("passed").value(violations.isEmpty())
+                .name("violations").beginArray();
+        for (String violation : violations) {
+            json.value(violation);
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private static void writeSamples(JsonWriter json, Samples samples) {
+        json.beginObject()
+                .name("count").value(samples.count())
+                .name("p50").value(samples.percentile(50))
+                .name("p90").value(samples.percentile(90))
+                .name("p99").value(samples.percentile(99))
+                .name("max").value(samples.max())
+                .endObject();
+    }
+
+    private void deleteWorkDir() {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Could not delete " + workDir + ": " + e.getMessage());
+        }
+    }
+
+    // Millisecond values; a soak test of a day at a few seconds per rewrite keeps some ten thousand of them
+    private static class Samples {
+        private long[] values = new long[1024];
+        private int count;
+
+        synchronized void add(long value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long percentile(int percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.ceil(percentile / 100.0 * count) - 1)];
+        }
+
+        synchronized long max() {
+            return percentile(100);
+        }
+
+        synchronized long sum() {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        String summary() {
+            return "count " + count() + ", p50 " + percentile(50) + ", p90 " + percentile(90) + ", p99 "
+                    + percentile(99) + ", max " + max();
+        }
+    }
+
+    static class Options {
+        private long durationMillis = TimeUnit.HOURS.toMillis(8);
+        private long warmupMillis = -1;
+        private int intervalSeconds = 5;
+        private int rows = 20_000;
+        private int append = 20;
+        private String format = "xlsx";
+        private long seed = 1;
+        private long maxLatencyMillis = 15_000;
+        private long maxEdtMillis = 250;
+        private long maxGcPauseMillis = 500;
+        private long maxHeapGrowthMb = 64;
+        private String report;
+        private boolean help;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--duration":
+                        options.durationMillis = duration(value(args, ++i, arg));
+                        break;
+                    case "--warmup":
+                        options.warmupMillis = duration(value(args, ++i, arg));
+                        break;
+                    case "--interval":
+                        options.intervalSeconds = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--rows":
+                        options.rows = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--append":
+                        options.append = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                        break;
+                    case "--format":
+                        options.format = value(args, ++i, arg).toLowerCase(Locale.ROOT);
+                        if (!"xlsx".equals(options.format) && !"csv".equals(options.format)) {
+                            throw new IllegalArgumentException("--format must be xlsx or csv");
+                        }
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(value(args, ++i, arg));
+                        break;
+                    case "--max-latency":
+                        options.maxLatencyMillis = Long.parseLong(value(args, ++i, arg));
+                        break;
+                    case "--max-edt":
+                        options.maxEdtMillis = Long.parseLong(value(args, ++i, arg));
+                        break;
+                    case "--max-gc-pause":
+                        options.maxGcPauseMillis = Long.parseLong(value(args, ++i, arg));
+                        break;
+                    case "--max-heap-growth":
+                        options.maxHeapGrowthMb = Long.parseLong(value(args, ++i, arg));
+                        break;
+                    case "--report":
+                        options.report = value(args, ++i, arg);
+                        break;
+                    case "-h":
+                    case "--help":
+                        options.help = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument " + arg);
+                }
+            }
+            if (options.warmupMillis < 0) {
+                options.warmupMillis = options.durationMillis / 10;
+            }
+            return options;
+        }
+
+        // 90s, 30m, 8h; a plain number is seconds
+        private static long duration(String value) {
+            try {
+                char unit = value.charAt(value.length() - 1);
+                if (Character.isDigit(unit)) {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+                }
+                long amount = Long.parseLong(value.substring(0, value.length() - 1));
+                switch (unit) {
+                    case 's':
+                        return TimeUnit.SECONDS.toMillis(amount);
+                    case 'm':
+                        return TimeUnit.MINUTES.toMillis(amount);
+                    case 'h':
+                        return TimeUnit.HOURS.toMillis(amount);
+                    default:
+                        throw new IllegalArgumentException("Unknown duration " + value);
+                }
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Unknown duration " + value);
+            }
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(option + " needs a value");
+            }
+            return args[index];
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package com.tools;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.source.TaskColumns;
+import com.source.TaskSources;
+import com.utils.DocumentTypes;
+import com.utils.ExcelDataReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Synthetic transaction exports for load and scale tests, shaped like production:
+//   - all document types, a few of them making up most of the volume
+//   - dates over the last business days in d-MMM-yy, part of them with Chinese month names ("1-十月-24")
+//   - TAT spread log-normally around each type's target, roughly a quarter of the tasks over it
+//   - most tasks lodged, pending ones concentrated on the last two days, a few handlers doing most of the work
+// The same seed and options always give the same rows. Rows are written as they are generated, so memory use
+// does not depend on the row count
+//   java -cp dashboard.jar com.tools.WorkloadGenerator generate --rows 1000000 --out big.xlsx
+//   java -cp dashboard.jar com.tools.WorkloadGenerator mutate big.xlsx --append 500 --flip 0.3
+public class WorkloadGenerator {
+    private static final String USAGE = String.join("\n",
+            "Usage: WorkloadGenerator generate --out FILE [options]",
+            "       WorkloadGenerator mutate FILE [options]",
+            "  --out FILE            file to write; .csv writes CSV, anything else xlsx (generate)",
+            "  --rows N              rows to write (generate, default 10000)",
+            "  --append N            new rows added at the end (mutate, default 100)",
+            "  --flip R              share of pending tasks that get lodged (mutate, default 0.3)",
+            "  --seed N              random seed (default 1)",
+            "  --end yyyy-MM-dd      last business day of the data, and the day of appended rows (default today)",
+            "  --days N              business days the rows are spread over (default 60)",
+            "  --pending R           share of pending tasks older than two days (default 0.02)",
+            "  --chinese R           share of dates written with Chinese month names (default 0.2)");
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("d-MMM-yy", Locale.ENGLISH);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("MMM dd yyyy hh:mm:ss a",
+            Locale.ENGLISH);
+    private static final String[] CHINESE_MONTHS = {
+            "一月", "二月", "三月", "四月", "五月", "六月", "七月", "八月", "九月", "十月", "十一月", "十二月"
+    };
+    private static final String[] HANDLERS = {
+            "Candy", "Jack", "Jason", "Sam", "Amy", "Ben", "Kelly", "Leo", "Mandy", "Nick", "Olivia", "Peter"
+    };
+    private static final String[] CURRENCIES = {"USD", "USD", "USD", "HKD", "EUR", "CNY"};
+
+    // Pending share of the last business day and the one before; older tasks use the --pending option
+    private static final double PENDING_TODAY = 0.5;
+    private static final double PENDING_YESTERDAY = 0.15;
+
+    // Median TAT as a share of the target and the spread of its logarithm: about 25% of the tasks end over target
+    private static final double TAT_MEDIAN = 0.7;
+    private static final double TAT_SIGMA = 0.55;
+
+    // Rows handed to the xlsx writer at a time
+    private static final int XLSX_BATCH = 5000;
+
+    private final Random random;
+    private final List<LocalDate> days;
+    private final double pendingRatio;
+    private final double chineseRatio;
+    private final List<DocumentTypes.DocumentTypeInfo> types;
+    private final double[] typeWeights;
+    private final double[] handlerWeights;
+    private long nextSerial = 11_500_000L;
+
+    public WorkloadGenerator(long seed, LocalDate end, int businessDays, double pendingRatio, double chineseRatio) {
+        this.random = new Random(seed);
+        this.days = businessDays(end, businessDays);
+        this.pendingRatio = pendingRatio;
+        this.chineseRatio = chineseRatio;
+
+        // Which types are common differs by seed, the shape of the mix does not
+        this.types = new ArrayList<>(DocumentTypes.DOCUMENT_TYPES);
+        Collections.shuffle(types, random);
+        this.typeWeights = zipf(types.size(), 1.1);
+        this.handlerWeights = zipf(HANDLERS.length, 1.2);
+    }
+
+    // A new task on a random business day
+    public ExcelDataReader.ExcelModel next() {
+        int age = random.nextInt(days.size());
+        return next(days.get(days.size() - 1 - age), age);
+    }
+
+    public List<ExcelDataReader.ExcelModel> next(int count) {
+        List<ExcelDataReader.ExcelModel> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(next());
+        }
+        return rows;
+    }
+
+    // A new task on the last business day, as the upstream export adds them
+    public ExcelDataReader.ExcelModel nextToday() {
+        return next(days.get(days.size() - 1), 0);
+    }
+
+    private ExcelDataReader.ExcelModel next(LocalDate day, int age) {
+        DocumentTypes.DocumentTypeInfo type = types.get(pick(typeWeights));
+        ExcelDataReader.ExcelModel row = new ExcelDataReader.ExcelModel();
+        row.setDate(formatDate(day));
+        row.setDocumentType(type.getType());
+        row.setDocumentSerial(String.valueOf(nextSerial++));
+        row.setReferenceNumber(String.valueOf(100 + random.nextInt(900_000)));
+        row.setDetail(CURRENCIES[random.nextInt(CURRENCIES.length)] + " "
+                + String.format(Locale.ENGLISH, "%,.2f", Math.exp(7 + random.nextDouble() * 7)));
+        row.setClientName((char) ('A' + random.nextInt(26)) + " Co.Ltd");
+
+        LocalDateTime received = day.atTime(8, 30).plusSeconds(random.nextInt(8 * 3600));
+        long tat = Math.max(60, Math.round(type.getTatHours() * 3600 * TAT_MEDIAN
+                * Math.exp(random.nextGaussian() * TAT_SIGMA)));
+        long atBranch = Math.round(tat * (0.1 + random.nextDouble() * 0.2));
+        long verification = Math.round(tat * (0.05 + random.nextDouble() * 0.1));
+        long entry = Math.round(tat * (0.05 + random.nextDouble() * 0.15));
+        LocalDateTime scanned = received.plusSeconds(atBranch);
+        LocalDateTime lodgementStarted = scanned.plusSeconds(verification);
+        row.setApplicationReceivedAt(received.format(TIMESTAMP));
+        row.setScannedAt(scanned.format(TIMESTAMP));
+        row.setTotalTimeAtBranch(duration(atBranch));
+        row.setVerifiedAt(scanned.format(TIMESTAMP));
+        row.setTotalTimeForVerification(duration(verification));
+        row.setLodgementStartedAt(lodgementStarted.format(TIMESTAMP));
+        row.setHandler(HANDLERS[pick(handlerWeights)]);
+
+        double pending = age == 0 ? PENDING_TODAY : age == 1 ? PENDING_YESTERDAY : pendingRatio;
+        if (random.nextDouble() < pending) {
+            row.setStatus("Pending");
+            return row;
+        }
+        LocalDateTime confirmed = lodgementStarted.plusSeconds(entry);
+        row.setConfirmedAt(confirmed.format(TIMESTAMP));
+        row.setTotalTimeForEntry(duration(entry));
+        row.setComplianceVerifiedAt(confirmed.plusSeconds(Math.round(tat * 0.05)).format(TIMESTAMP));
+        lodge(row, received, tat);
+        return row;
+    }
+
+    // Complete a task: status, TAT and authorization time
+    private static void lodge(ExcelDataReader.ExcelModel row, LocalDateTime received, long tat) {
+        row.setStatus("Lodge");
+        row.setTat(duration(tat));
+        row.setAuthorizedAt(received.plusSeconds(tat).format(TIMESTAMP));
+    }
+
+    // Lodge a pending task read back from a file, with a TAT drawn like a new task's
+    private void lodge(ExcelDataReader.ExcelModel row) {
+        int tatHours = DocumentTypes.getDocumentTatHours(row.getDocumentType());
+        long tat = Math.max(60, Math.round(tatHours * 3600 * TAT_MEDIAN * Math.exp(random.nextGaussian() * TAT_SIGMA)));
+        LocalDateTime received;
+        try {
+            received = LocalDateTime.parse(row.getApplicationReceivedAt(), TIMESTAMP);
+        } catch (DateTimeParseException | NullPointerException e) {
+            received = days.get(days.size() - 1).atTime(9, 0);
+        }
+        lodge(row, received, tat);
+    }
+
+    private String formatDate(LocalDate day) {
+        String date = day.format(DATE);
+        if (random.nextDouble() >= chineseRatio) {
+            return date;
+        }
+        String[] parts = date.split("-");
+        return parts[0] + "-" + CHINESE_MONTHS[day.getMonthValue() - 1] + "-" + parts[2];
+    }
+
+    // Index drawn with the given cumulative weights
+    private int pick(double[] cumulative) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int i = 0; i < cumulative.length; i++) {
+            if (target < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    // Cumulative weights 1/rank^exponent: a few ranks take most of the draws
+    private static double[] zipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    private static List<LocalDate> businessDays(LocalDate end, int count) {
+        List<LocalDate> days = new ArrayList<>(count);
+        LocalDate day = end;
+        while (days.size() < count) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                days.add(day);
+            }
+            day = day.minusDays(1);
+        }
+        Collections.reverse(days);
+        return days;
+    }
+
+    // The export's HHHHH:mm:ss duration format
+    private static String duration(long seconds) {
+        return String.format("%05d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    // Write that many new rows to a file (CSV when the name ends in .csv, xlsx otherwise)
+    public void write(Path file, long rows) throws IOException {
+        try (RowWriter writer = RowWriter.open(file)) {
+            for (long i = 0; i < rows; i++) {
+                writer.write(next());
+            }
+        }
+    }
+
+    // Change a file the way the upstream export does between two runs: a share of the pending tasks is lodged and
+    // new tasks of the last business day are appended. The file is streamed into a sibling and then swapped in
+    // with one rename, so a dashboard watching it never reads a half written file
+    public void mutate(Path file, int append, double flip) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".part" + extension(file));
+        long[] maxSerial = {nextSerial - 1};
+        try (RowWriter writer = RowWriter.open(partial)) {
+            TaskSources.forPath(file.toString()).read(row -> {
+                if ("PENDING".equalsIgnoreCase(row.getStatus()) && random.nextDouble() < flip) {
+                    lodge(row);
+                }
+                maxSerial[0] = Math.max(maxSerial[0], serial(row));
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot write " + partial, e);
+                }
+            });
+            nextSerial = maxSerial[0] + 1;
+            for (int i = 0; i < append; i++) {
+                writer.write(nextToday());
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long serial(ExcelDataReader.ExcelModel row) {
+        try {
+            return row.getDocumentSerial() == null ? 0 : (long) Double.parseDouble(row.getDocumentSerial().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || "--help".equals(args[0]) || "-h".equals(args[0])) {
+            System.out.println(USAGE);
+            return;
+        }
+        try {
+            run(args);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void run(String[] args) throws IOException {
+        String command = args[0];
+        String file = null;
+        long rows = 10_000;
+        int append = 100;
+        double flip = 0.3;
+        long seed = 1;
+        LocalDate end = LocalDate.now();
+        int days = 60;
+        double pending = 0.02;
+        double chinese = 0.2;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--out":
+                    file = value(args, ++i, arg);
+                    break;
+                case "--rows":
+                    rows = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--append":
+                    append = Integer.parseInt(value(args, ++i, arg));
+                    break;
+                case "--flip":
+                    flip = ratio(value(args, ++i, arg), arg);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value(args, ++i, arg));
+                    break;
+                case "--end":
+                    end = LocalDate.parse(value(args, ++i, arg));
+                    break;
+                case "--days":
+                    days = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                    break;
+                case "--pending":
+                    pending = ratio(value(args, ++i, arg), arg);
+                    break;
+                case "--chinese":
+                    chinese = ratio(value(args, ++i, arg), arg);
+                    break;
+                default:
+                    if (arg.startsWith("--") || file != null) {
+                        throw new IllegalArgumentException("Unknown argument " + arg);
+                    }
+                    file = arg;
+            }
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("No file given");
+        }
+
+        WorkloadGenerator generator = new WorkloadGenerator(seed, end, days, pending, chinese);
+        long start = System.currentTimeMillis();
+        switch (command) {
+            case "generate":
+                generator.write(Paths.get(file), rows);
+                System.out.println("Wrote " + rows + " rows to " + file + " in "
+                        + (System.currentTimeMillis() - start) + " ms");
+                break;
+            case "mutate":
+                generator.mutate(Paths.get(file), append, flip);
+                System.out.println("Mutated " + file + " (+" + append + " rows) in "
+                        + (System.currentTimeMillis() - start) + " ms");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + command);
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static double ratio(String value, String option) {
+        double ratio = Double.parseDouble(value);
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException(option + " must be between 0 and 1");
+        }
+        return ratio;
+    }
+
+    // Streams rows into a file in the workbook's column layout
+    public abstract static class RowWriter implements Closeable {
+        public abstract void write(ExcelDataReader.ExcelModel row) throws IOException;
+
+        public static RowWriter open(Path file) throws IOException {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                return new CsvRowWriter(file);
+            }
+            return new XlsxRowWriter(file);
+        }
+    }
+
+    // RFC 4180 CSV with the workbook headers, as CsvTaskSource reads it
+    private static class CsvRowWriter extends RowWriter {
+        private final Writer out;
+        private final Field[] fields;
+
+        CsvRowWriter(Path file) throws IOException {
+            String[] headers = TaskColumns.headers();
+            this.fields = TaskColumns.resolve(headers);
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            writeRecord(headers);
+        }
+
+        @Override
+        public void write(ExcelDataReader.ExcelModel row) throws IOException {
+            String[] values = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = TaskColumns.get(row, fields[i]);
+            }
+            writeRecord(values);
+        }
+
+        private void writeRecord(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                String value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+                    out.write('"');
+                    out.write(value.replace("\"", "\"\""));
+                    out.write('"');
+                } else {
+                    out.write(value);
+                }
+            }
+            out.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // xlsx through EasyExcel, which keeps only a window of rows in memory; rows are handed over in batches
+    private static class XlsxRowWriter extends RowWriter {
+        private final ExcelWriter writer;
+        private final WriteSheet sheet = EasyExcel.writerSheet("Sheet1").build();
+        private final List<ExcelDataReader.ExcelModel> batch = new ArrayList<>(XLSX_BATCH);
+        private boolean written;
+
+        XlsxRowWriter(Path file) {
+            this.writer = EasyExcel.write(file.toFile(), ExcelDataReader.ExcelModel.class).build();
+        }
+
+        @Override
+        public void write(ExcelDataReader.ExcelModel row) {
+            batch.add(row);
+            if (batch.size() == XLSX_BATCH) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            writer.write(batch, sheet);
+            batch.clear();
+            written = true;
+        }
+
+        @Override
+        public void close() {
+            // An empty file still gets its header row
+            if (!batch.isEmpty() || !written) {
+                flush();
+            }
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ui;
+
+import com.utils.DashboardSeries;
+import com.utils.DashboardSnapshot;
+import com.utils.ExcelDataReader;
+import com.utils.TaskDates;
+import org.jfree.data.category.DefaultCategoryDataset;
+
+import javax.swing.table.DefaultTableModel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// The chart datasets and the task table model the dashboard shows for a snapshot and a selection
+// (document type or "all", selected date yyyy-MM-dd or null, weekly or monthly view)
+// Nothing here touches a component, so the models can be built and measured without a display
+public final class DashboardModels {
+    public static final String[] TABLE_COLUMNS = {
+            "Date", "Document Serial", "Document Type", "Reference Number", "Detail", "Client Name", "Status",
+            "TAT", "Handler", "Application Received At", "Scanned At", "Total Time At Branch", "Verified At",
+            "Total Time For Verification", "Lodgement Started At", "Confirmed At", "Total Time For Entry",
+            "Compliance Verified At", "Authorized At"
+    };
+
+    private DashboardModels() {
+    }
+
+    // Line chart: completed tasks
+    public static DefaultCategoryDataset lineDataset(DashboardSnapshot snapshot, String documentType,
+                                                     String selectedDate, boolean weekly) {
+        return toDataset(DashboardSeries.completedSeries(snapshot, documentType, selectedDate, weekly));
+    }
+
+    // Bar chart: status distribution
+    public static DefaultCategoryDataset barDataset(DashboardSnapshot snapshot, String documentType,
+                                                    String selectedDate, boolean weekly) {
+        return toDataset(DashboardSeries.statusSeries(snapshot, documentType, selectedDate, weekly));
+    }
+
+    // Table of the tasks of the selected type on the selected day (every day when no date is selected)
+    public static DefaultTableModel taskTableModel(DashboardSnapshot snapshot, String documentType,
+                                                   String selectedDate) {
+        return new DefaultTableModel(taskRows(filterTasks(snapshot.getTaskList(), documentType, selectedDate)),
+                TABLE_COLUMNS);
+    }
+
+    // One table row per task, in TABLE_COLUMNS order
+    public static Object[][] taskRows(List<ExcelDataReader.TaskData> tasks) {
+        Object[][] rows = new Object[tasks.size()][];
+        for (int i = 0; i < tasks.size(); i++) {
+            ExcelDataReader.TaskData task = tasks.get(i);
+            rows[i] = new Object[] {
+                    TaskDates.toEnglish(task.getDate()),
+                    task.getDocumentSerial(),
+                    task.getDocumentType(),
+                    task.getReferenceNumber(),
+                    task.getDetail(),
+                    task.getClientName(),
+                    task.getStatus(),
+                    task.getTat(),
+                    task.getHandler(),
+                    task.getApplicationReceivedAt(),
+                    task.getScannedAt(),
+                    task.getTotalTimeAtBranch(),
+                    task.getVerifiedAt(),
+                    task.getTotalTimeForVerification(),
+                    task.getLodgementStartedAt(),
+                    task.getConfirmedAt(),
+                    task.getTotalTimeForEntry(),
+                    task.getComplianceVerifiedAt(),
+                    task.getAuthorizedAt()
+            };
+        }
+        return rows;
+    }
+
+    private static List<ExcelDataReader.TaskData> filterTasks(List<ExcelDataReader.TaskData> taskList,
+                                                              String documentType, String selectedDate) {
+        return taskList.stream()
+                .filter(task -> documentType.equals("all") ||
+                        task.getDocumentType().equals(documentType))
+                .filter(task -> {
+                    if (selectedDate == null) {
+                        return true;
+                    }
+                    try {
+                        // First convert Chinese dates to English dates
+                        String englishDate = TaskDates.toEnglish(task.getDate());
+
+                        // Parsing English Date Strings into Date Objects
+                        SimpleDateFormat parseFormat = new SimpleDateFormat("dd-MMM-yy", Locale.ENGLISH);
+                        Date taskDate = parseFormat.parse(englishDate);
+
+                        // Formatting Date objects in yyyy-MM-dd format
+                        SimpleDateFormat outputFormat = new SimpleDateFormat("yyyy-MM-dd");
+                        String formattedTaskDate = outputFormat.format(taskDate);
+
+                        return formattedTaskDate.equals(selectedDate);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        return false;
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Copy a series set (series -> category -> value) into a chart dataset, keeping the order
+    private static DefaultCategoryDataset toDataset(Map<String, Map<String, Long>> series) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        series.forEach((name, values) -> values.forEach((label, value) -> dataset.addValue(value, name, label)));
+        return dataset;
+    }
+}
@@ -0,0 +1,224 @@
+package com.ui;
+
+import com.metrics.Histogram;
+import com.metrics.Metrics;
+import com.service.DataService;
+import com.utils.DashboardSnapshot;
+import com.utils.RefreshScheduler;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// Live view of what the dashboard process is doing, so a slow screen can be diagnosed without a profiler:
+// scheduler state, heap and render times at the top, and three tabs with the phase timings of the last
+// refreshes, the rows per document type of the latest data, and the places that blocked the EDT
+// Updated once a second while open; a table is only rebuilt when its data changed, so selections survive
+public class DiagnosticsDialog extends JDialog {
+    private static final String[] REFRESH_COLUMNS = {
+            "Finished", "Outcome", "Version", "Rows", "Read ms", "Record ms", "Snapshot ms", "Listeners ms", "Total ms"
+    };
+    private static final String[] TYPE_COLUMNS = {"Document Type", "Rows", "Ongoing", "Completed", "Over TAT"};
+    private static final String[] STALL_COLUMNS = {"Location", "Stalls", "Worst ms", "Total ms", "Last"};
+
+    private final DataService service;
+    private final JLabel schedulerLabel = new JLabel();
+    private final JLabel heapLabel = new JLabel();
+    private final JLabel renderLabel = new JLabel();
+    private final DefaultTableModel refreshModel = readOnlyModel(REFRESH_COLUMNS);
+    private final DefaultTableModel typeModel = readOnlyModel(TYPE_COLUMNS);
+    private final DefaultTableModel stallModel = readOnlyModel(STALL_COLUMNS);
+    private final JTable stallTable = new JTable(stallModel);
+    private final JTextArea stackArea = new JTextArea();
+    private final Timer timer;
+
+    private DataService.RefreshTiming lastTiming;
+    private long typesVersion = -1;
+    private long stallCount = -1;
+    private List<EdtWatchdog.Offender> offenders;
+
+    public DiagnosticsDialog(Frame owner, DataService service) {
+        super(owner, "Diagnostics", false);
+        this.service = service;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setSize(900, 600);
+        setLocationRelativeTo(owner);
+
+        JPanel status = new JPanel(new GridLayout(3, 1));
+        status.setBorder(BorderFactory.createEmptyBorder(8, 10, 8, 10));
+        status.add(schedulerLabel);
+        status.add(heapLabel);
+        status.add(renderLabel);
+
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        stallTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        stallTable.getSelectionModel().addListSelectionListener(e -> showStack());
+        JSplitPane stalls = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(stallTable), new JScrollPane(stackArea));
+        stalls.setResizeWeight(0.5);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Refreshes", new JScrollPane(new JTable(refreshModel)));
+        tabs.addTab("Rows per Type", new JScrollPane(new JTable(typeModel)));
+        tabs.addTab("EDT Stalls", stalls);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(status, BorderLayout.NORTH);
+        getContentPane().add(tabs, BorderLayout.CENTER);
+
+        timer = new Timer(1000, e -> update());
+        update();
+        timer.start();
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+        super.dispose();
+    }
+
+    private void update() {
+        updateStatus();
+        updateRefreshes();
+        updateTypes();
+        updateStalls();
+    }
+
+    private void updateStatus() {
+        RefreshScheduler scheduler = service.getScheduler();
+        Histogram lag = Metrics.histogram("scheduler.lag");
+        if (scheduler == null) {
+            schedulerLabel.setText("Scheduler: follow mode, files are merged as they arrive");
+        } else {
+            long sinceRun = scheduler.getLastRunAt() == 0 ? -1
+                    : (System.currentTimeMillis() - scheduler.getLastRunAt()) / 1000;
+            schedulerLabel.setText(String.format(Locale.ENGLISH,
+                    "Scheduler: interval %.1f s, last run %s, took %d ms, %s; start lag p99 %.1f ms",
+                    scheduler.getIntervalMillis() / 1000.0,
+                    sinceRun < 0 ? "not yet" : sinceRun + " s ago",
+                    scheduler.getLastLatencyMillis(),
+                    scheduler.isLastChanged() ? "data changed" : "no change",
+                    lag.getP99() / 1000.0));
+        }
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        heapLabel.setText(String.format(Locale.ENGLISH, "Heap: %d MB used, %d MB committed, %s",
+                heap.getUsed() >> 20, heap.getCommitted() >> 20,
+                heap.getMax() < 0 ? "no limit" : (heap.getMax() >> 20) + " MB max"));
+
+        Histogram render = Metrics.histogram("edt.render");
+        EdtWatchdog watchdog = EdtWatchdog.get();
+        renderLabel.setText(String.format(Locale.ENGLISH,
+                "Screen updates: %d, p50 %.1f ms, p99 %.1f ms, max %.1f ms; EDT stalls over %s: %d",
+                render.getCount(), render.getP50() / 1000.0, render.getP99() / 1000.0, render.getMax() / 1000.0,
+                watchdog == null ? "threshold (watchdog off)" : watchdog.getThresholdMillis() + " ms",
+                watchdog == null ? 0 : watchdog.getStallCount()));
+    }
+
+    // Newest refresh first
+    private void updateRefreshes() {
+        List<DataService.RefreshTiming> timings = service.getRefreshTimings();
+        DataService.RefreshTiming newest = timings.isEmpty() ? null : timings.get(timings.size() - 1);
+        if (newest == lastTiming) {
+            return;
+        }
+        lastTiming = newest;
+        SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss");
+        Object[][] rows = new Object[timings.size()][];
+        for (int i = 0; i < timings.size(); i++) {
+            DataService.RefreshTiming timing = timings.get(timings.size() - 1 - i);
+            rows[i] = new Object[] {
+                    format.format(new Date(timing.getFinishedAt())),
+                    timing.getOutcome(),
+                    timing.getVersion() < 0 ? "" : timing.getVersion(),
+                    timing.getRows() < 0 ? "" : timing.getRows(),
+                    millis(timing.getReadNanos()),
+                    millis(timing.getRecordNanos()),
+                    millis(timing.getSnapshotNanos()),
+                    millis(timing.getDispatchNanos()),
+                    millis(timing.getTotalNanos())
+            };
+        }
+        refreshModel.setDataVector(rows, REFRESH_COLUMNS);
+    }
+
+    private void updateTypes() {
+        DashboardSnapshot snapshot = service.getSnapshot();
+        if (snapshot.getVersion() == typesVersion) {
+            return;
+        }
+        typesVersion = snapshot.getVersion();
+        List<String> types = snapshot.getDocumentTypes();
+        Object[][] rows = new Object[types.size()][];
+        for (int i = 0; i < types.size(); i++) {
+            String type = types.get(i);
+            rows[i] = new Object[] {
+                    DashboardSnapshot.ALL_TYPES.equals(type) ? "All" : type,
+                    snapshot.getRowCount(type),
+                    snapshot.getOngoingTasksCount(type),
+                    snapshot.getCompletedTasksCount(type),
+                    snapshot.getAbnormalTATCount(type)
+            };
+        }
+        typeModel.setDataVector(rows, TYPE_COLUMNS);
+    }
+
+    private void updateStalls() {
+        EdtWatchdog watchdog = EdtWatchdog.get();
+        if (watchdog == null || watchdog.getStallCount() == stallCount) {
+            return;
+        }
+        stallCount = watchdog.getStallCount();
+        offenders = watchdog.getOffenders();
+        SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss");
+        Object[][] rows = new Object[offenders.size()][];
+        for (int i = 0; i < offenders.size(); i++) {
+            EdtWatchdog.Offender offender = offenders.get(i);
+            rows[i] = new Object[] {
+                    offender.getLocation(),
+                    offender.getCount(),
+                    offender.getWorstMillis(),
+                    offender.getTotalMillis(),
+                    format.format(new Date(offender.getLastAt()))
+            };
+        }
+        stallModel.setDataVector(rows, STALL_COLUMNS);
+        stallTable.getColumnModel().getColumn(0).setPreferredWidth(400);
+        stackArea.setText("");
+    }
+
+    // EDT stack of the worst stall at the selected place
+    private void showStack() {
+        int row = stallTable.getSelectedRow();
+        if (row < 0 || offenders == null || row >= offenders.size()) {
+            stackArea.setText("");
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (StackTraceElement frame : offenders.get(row).getWorstStack()) {
+            text.append("at ").append(frame).append('\n');
+        }
+        stackArea.setText(text.length() == 0 ? "The stall ended before its stack could be taken" : text.toString());
+        stackArea.setCaretPosition(0);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ENGLISH, "%.1f", nanos / 1_000_000.0);
+    }
+
+    private static DefaultTableModel readOnlyModel(String[] columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
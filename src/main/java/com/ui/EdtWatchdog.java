@@ -0,0 +1,232 @@
+package com.ui;
+
+import com.metrics.Histogram;
+import com.metrics.Metrics;
+import com.utils.DashboardConfig;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Notices when the event dispatch thread is blocked for longer than a threshold: a daemon thread keeps one
+// heartbeat queued on the EDT, and when a heartbeat has waited past the threshold it takes the EDT's stack,
+// which shows the code that is holding the screen up. Stalls are grouped by the first frame outside the JDK
+// (the dashboard or library code that blocked) so the diagnostics panel can list the worst offenders
+// One watchdog per process, shared by all windows
+public final class EdtWatchdog {
+    private static final int MAX_OFFENDERS = 100;
+    private static final String[] JDK_PACKAGES = {"java.", "javax.", "sun.", "jdk.", "com.sun."};
+
+    private static EdtWatchdog instance;
+
+    private static final Metrics.Counter STALLS = Metrics.counter("edt.stalls");
+    private static final Histogram STALL_TIME = Metrics.histogram("edt.stall");
+
+    private final long thresholdNanos;
+    private final long checkMillis;
+
+    // Heartbeat: posted with postedAt set, sets postedAt back to 0 when the EDT gets to it
+    private volatile long postedAt;
+    private volatile long ranAt;
+    private volatile Thread edt;
+    private final Runnable heartbeat = () -> {
+        edt = Thread.currentThread();
+        ranAt = System.nanoTime();
+        postedAt = 0;
+    };
+
+    // Watchdog thread only
+    private long lastPosted;
+    private StackTraceElement[] stallStack;
+
+    private final Map<String, Offender> offenders = new HashMap<>();
+    private long stalls;
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        // Look often enough that a stall just over the threshold is still caught while it lasts
+        this.checkMillis = Math.max(10, thresholdMillis / 4);
+    }
+
+    // diagnostics.edtStallMillis (250): start the watchdog on first use; 0 turns it off and returns null
+    public static synchronized EdtWatchdog startFromConfig(DashboardConfig config) {
+        long thresholdMillis = config.getLong("diagnostics.edtStallMillis", 250);
+        if (instance == null && thresholdMillis > 0) {
+            instance = new EdtWatchdog(thresholdMillis);
+            Thread thread = new Thread(instance::watch, "edt-watchdog");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return instance;
+    }
+
+    // The running watchdog, null when it is off or not started
+    public static synchronized EdtWatchdog get() {
+        return instance;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    // Stalls seen so far
+    public synchronized long getStallCount() {
+        return stalls;
+    }
+
+    // Places that blocked the EDT, longest stall first
+    public synchronized List<Offender> getOffenders() {
+        List<Offender> result = new ArrayList<>();
+        for (Offender offender : offenders.values()) {
+            result.add(offender.copy());
+        }
+        result.sort(Comparator.comparingLong(Offender::getWorstMillis).reversed());
+        return result;
+    }
+
+    private void watch() {
+        while (true) {
+            try {
+                Thread.sleep(checkMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            check();
+        }
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        if (postedAt != 0) {
+            // Still waiting; take the stack once, at the first look past the threshold
+            Thread thread = edt;
+            if (stallStack == null && thread != null && now - lastPosted >= thresholdNanos) {
+                stallStack = thread.getStackTrace();
+            }
+            return;
+        }
+
+        long blocked = ranAt - lastPosted;
+        if (lastPosted != 0 && blocked >= thresholdNanos) {
+            record(TimeUnit.NANOSECONDS.toMillis(blocked), stallStack);
+        }
+        stallStack = null;
+        lastPosted = now;
+        postedAt = now;
+        SwingUtilities.invokeLater(heartbeat);
+    }
+
+    private synchronized void record(long millis, StackTraceElement[] stack) {
+        stalls++;
+        STALLS.increment();
+        STALL_TIME.record(TimeUnit.MILLISECONDS.toMicros(millis));
+
+        String location = location(stack);
+        Offender offender = offenders.get(location);
+        if (offender == null) {
+            if (offenders.size() >= MAX_OFFENDERS) {
+                // Keep the list bounded: a new place only replaces the mildest one
+                Offender mildest = offenders.values().stream()
+                        .min(Comparator.comparingLong(Offender::getWorstMillis)).get();
+                if (mildest.worstMillis >= millis) {
+                    return;
+                }
+                offenders.remove(mildest.location);
+            }
+            offender = new Offender(location);
+            offenders.put(location, offender);
+        }
+        offender.add(millis, stack);
+    }
+
+    // First frame outside the JDK, or the top frame when the EDT was in JDK code only
+    private static String location(StackTraceElement[] stack) {
+        if (stack == null || stack.length == 0) {
+            return "(ended before it could be sampled)";
+        }
+        for (StackTraceElement frame : stack) {
+            if (!isJdk(frame.getClassName())) {
+                return describe(frame);
+            }
+        }
+        return describe(stack[0]);
+    }
+
+    // Class.method(File.java:line), without the module and class loader prefixes of toString()
+    private static String describe(StackTraceElement frame) {
+        return frame.getClassName() + "." + frame.getMethodName()
+                + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")";
+    }
+
+    private static boolean isJdk(String className) {
+        for (String prefix : JDK_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // All stalls at one place: how often, how long in total and at worst, and the EDT stack of the worst one
+    public static final class Offender {
+        private final String location;
+        private int count;
+        private long totalMillis;
+        private long worstMillis;
+        private long lastAt;
+        private StackTraceElement[] worstStack;
+
+        Offender(String location) {
+            this.location = location;
+        }
+
+        void add(long millis, StackTraceElement[] stack) {
+            count++;
+            totalMillis += millis;
+            lastAt = System.currentTimeMillis();
+            if (millis >= worstMillis) {
+                worstMillis = millis;
+                worstStack = stack;
+            }
+        }
+
+        Offender copy() {
+            Offender copy = new Offender(location);
+            copy.count = count;
+            copy.totalMillis = totalMillis;
+            copy.worstMillis = worstMillis;
+            copy.lastAt = lastAt;
+            copy.worstStack = worstStack;
+            return copy;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getWorstMillis() {
+            return worstMillis;
+        }
+
+        public long getLastAt() {
+            return lastAt;
+        }
+
+        // Empty when the stall ended before the stack could be taken
+        public StackTraceElement[] getWorstStack() {
+            return worstStack == null ? new StackTraceElement[0] : worstStack;
+        }
+    }
+}
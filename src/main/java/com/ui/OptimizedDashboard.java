@@ -1,8 +1,24 @@
 package com.ui;
 
 import com.formdev.flatlaf.FlatLightLaf;
+import com.metrics.Histogram;
+import com.metrics.Metrics;
+import com.metrics.Phases;
+import com.service.DataService;
+import com.source.TaskSource;
+import com.source.TaskSources;
+import com.store.SnapshotCache;
+import com.store.TimeSeriesStore;
 import com.toedter.calendar.JDateChooser;
+import com.utils.DashboardConfig;
+import com.utils.DashboardSeries;
+import com.utils.DashboardSnapshot;
+import com.utils.DocumentTypes;
 import com.utils.ExcelDataReader;
+import com.utils.SnapshotTimeline;
+import com.utils.TaskDates;
+import com.utils.TatHistogram;
+import com.utils.WorkbookFederation;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -24,29 +40,27 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseAdapter;
+import javax.swing.event.ChangeEvent;
 import javax.swing.border.AbstractBorder;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.DayOfWeek;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
 import java.util.Locale;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.stream.Collectors;
 import java.text.SimpleDateFormat;
 
 public class OptimizedDashboard extends JFrame {
@@ -63,13 +77,26 @@ public class OptimizedDashboard extends JFrame {
     private static final Color OVER_TAT_COLOR = Color.decode("#FF1744");  // Set colors outside the TAT range to a more vibrant red
 
     private boolean isWeeklyView = true;  // Controls whether the weekly view is displayed, defaults to weekly view
+    private boolean isTrendView = false;  // Shows the last 12 months from the local history instead of the weekly/monthly view
+    private static final int TREND_MONTHS = 12;  // Number of months in the trend view
+    private static final Histogram EDT_RENDER = Metrics.histogram("edt.render");  // Time the EDT spends rebuilding the screen
     private ChartPanel lineChartPanel;  // Storing panels for line graphs
     private ChartPanel barChartPanel;  // Panel for storing bar charts
     private JScrollPane tableScrollPane;  // Scrolling panels for storing data tables
     private JTable dataTable;  // Stored Data Forms
-    private ExcelDataReader dataReader;  // Readers for reading Excel data
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);  // Creating a Timed Task Scheduler
-    private static final int REFRESH_INTERVAL = 10;  // Refresh interval (seconds)
+    private volatile DashboardSnapshot snapshot;  // What the screen shows; immutable, replaced as a whole on every refresh
+    private DashboardSnapshot liveSnapshot;  // Snapshot of the latest data; differs from snapshot while an older version is shown
+    private final DataService service;  // Ingestion shared by all windows of the process; a window only renders
+    private final Consumer<DashboardSnapshot> publishListener = this::onPublished;  // Registered with the service while the window is open
+    private JMenu branchMenu;  // Branch filter menu, only present for a workbook federation
+    private final TimeSeriesStore history;  // Daily aggregates of every refresh, null when disabled
+    private final SnapshotTimeline timeline;  // Versions of the published data, null when disabled
+    private JSlider timelineSlider;  // Picks a retained version; the right end is the live data
+    private JLabel timelineLabel;  // Time of the version shown, or "Live"
+    private JLabel tatPercentilesLabel;  // TAT percentiles of the days in the chart view, against the target TAT
+    private SnapshotTimeline.Version viewedVersion;  // Version selected on the timeline, null when live
+    private boolean adjustingTimeline;  // Set while the slider range is changed by code
+    private static final AtomicInteger OPEN_WINDOWS = new AtomicInteger();  // The application ends with the last window
 
     private JDateChooser chartDateChooser;
 
@@ -78,102 +105,30 @@ public class OptimizedDashboard extends JFrame {
     // Add a field to store the currently selected document type
     private String selectedDocumentType = "all";  // Default Show All
 
-    // Add new data structure to store document type and TAT information
-    public static class DocumentTypeInfo {
-        private final String type;
-        private final int tatHours;
+    // Currently selected branch of a workbook federation
+    private volatile String selectedBranch = WorkbookFederation.ALL_BRANCHES;
 
-        public DocumentTypeInfo(String type, int tatHours) {
-            this.type = type;
-            this.tatHours = tatHours;
-        }
-
-        public String getType() {
-            return type;
-        }
-
-        public int getTatHours() {
-            return tatHours;
-        }
-    }
-
-    // Create a static list to store all document type information
-    public static final List<DocumentTypeInfo> DOCUMENT_TYPES = new ArrayList<>();
-
-    static {
-        // 3 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Call Deposit - Customer Deposit", 3));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Call Deposit - Withdraw Deposit", 3));
-        
-        // 6 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("EColl - Export Collection", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Export - Packing Credit", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Export Document Memo", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Export-Reverse Packing Credit", 6));
-        
-        // 6 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("FIDBC Acceptance Lodge", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("FIDBC -Retire And Send", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("IBC Lodeg", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Import Document - Lodgement", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Import Document - Settlement", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("TR Reversal", 6));
-        
-        // 4 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Invoice Financial - ED", 4));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Invoice Financial - Lodgement", 4));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Invoice Financial - Retire", 4));
-        
-        // 6 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("LC -Amend Scanned LC", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("LC -Scanned LC", 6));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("LC -Web LC", 6));
-        
-        // 3 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Loan - Settlement", 3));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Loan Disbursal", 3));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Loan Installment Recovery", 3));
-        
-        // No specific TAT mentioned
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Outward Cheque Settlement", 3));
-        
-        // 4 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("Outward Remittance", 4));
-        
-        // 3 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("TD - Accept Deposit", 3));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("TD - Break Deposit", 3));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("TD - Renew Deposit", 3));
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("TD-Amend Deposit", 3));
-        
-        // 3 hours TAT
-        DOCUMENT_TYPES.add(new DocumentTypeInfo("IL Transfers", 3));
-    }
-
-    // Add a method to get the TAT time of a document type
-    public static int getDocumentTatHours(String documentType) {
-        return DOCUMENT_TYPES.stream()
-                .filter(info -> info.getType().equals(documentType))
-                .findFirst()
-                .map(DocumentTypeInfo::getTatHours)
-                .orElse(0);  // Returns 0 if the corresponding document type is not found.
+    // Constructor, pass in the path to the Excel file and initialize the interface.
+    public OptimizedDashboard(String excelFilePath) {
+        this(TaskSources.forPath(excelFilePath));
     }
 
-    // Add a method to get all document types
-    public static List<String> getAllDocumentTypes() {
-        return DOCUMENT_TYPES.stream()
-                .map(DocumentTypeInfo::getType)
-                .collect(Collectors.toList());
+    // Constructor, pass in the task source to read from and initialize the interface.
+    public OptimizedDashboard(TaskSource taskSource) {
+        this(DataService.install(new DataService(DashboardConfig.get(), taskSource, null)));
     }
 
-    // Add a method to check if the task is within the TAT time range
-    public static boolean isWithinTAT(String documentType, double actualTatHours) {
-        int targetTatHours = getDocumentTatHours(documentType);
-        return targetTatHours == 0 || actualTatHours <= targetTatHours;
+    // Constructor, pass in a set of branch workbooks and initialize the interface.
+    public OptimizedDashboard(WorkbookFederation federation) {
+        this(DataService.install(new DataService(DashboardConfig.get(), null, federation)));
     }
 
-    // Constructor, pass in the path to the Excel file and initialize the interface.
-    public OptimizedDashboard(String excelFilePath) {
+    // Constructor, pass in the (started) data service to show and initialize the interface.
+    // Any number of windows can share one service, each with its own category, date and branch selection
+    public OptimizedDashboard(DataService service) {
+        this.service = service;
+        this.history = service.getHistory();
+        this.timeline = service.getTimeline();
         try {
             UIManager.setLookAndFeel(new FlatLightLaf());  // Set the appearance to FlatLightLaf
         } catch (Exception ex) {
@@ -181,7 +136,7 @@ public class OptimizedDashboard extends JFrame {
         }
         setTitle("Dashboard - Optimized Layout");  // Setting the window title
         setSize(1200, 900);  // Setting the window size
-        setDefaultCloseOperation(EXIT_ON_CLOSE);  // Setting the window to exit the application when it closes
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);  // Closing a window disposes it, closing the last one exits the application
         setLayout(new GridBagLayout());  // Using the GridBagLayout Layout Manager
         getContentPane().setBackground(BACKGROUND_COLOR);  // Setting the background color of the window content area
 
@@ -189,9 +144,8 @@ public class OptimizedDashboard extends JFrame {
         gbc.fill = GridBagConstraints.BOTH;  // Letting components fill their available space
         gbc.insets = new Insets(5, 15, 5, 15);  // Set the inner margins of the component to reduce the top and bottom spacing and maintain the left and right spacing
 
-        // Initializing the data reader and reading Excel data
-        dataReader = new ExcelDataReader(excelFilePath);
-        dataReader.readExcelData();
+        // Show the data the service has right away; its refreshes run in the background and catch up
+        snapshot = liveSnapshot = service.getSnapshot(selectedBranch);
 
         // After setting the window properties, add a menu bar
         createMenuBar();
@@ -256,8 +210,12 @@ public class OptimizedDashboard extends JFrame {
         gbc.insets = new Insets(5, 15, 5, 15);
         add(tableScrollPane, gbc);
 
-        // Add a timed refresh task
-        startAutoRefresh();  // Activate the timed refresh function
+        // Watch the EDT for stalls from the first window on, so the diagnostics panel has a history when opened
+        EdtWatchdog.startFromConfig(DashboardConfig.get());
+
+        // Show every snapshot the service publishes from now on
+        service.addListener(publishListener);
+        OPEN_WINDOWS.incrementAndGet();
     }
 
     // Creating a menu bar
@@ -269,6 +227,9 @@ public class OptimizedDashboard extends JFrame {
         JMenuItem importMenuItem = new JMenuItem("Import");
         importMenuItem.addActionListener(e -> handleImport());
         fileMenu.add(importMenuItem);
+        JMenuItem newWindowMenuItem = new JMenuItem("New Window");
+        newWindowMenuItem.addActionListener(e -> openNewWindow());
+        fileMenu.add(newWindowMenuItem);
         
         // Creating a “Category” menu
         JMenu categoryMenu = new JMenu("Category");
@@ -277,15 +238,29 @@ public class OptimizedDashboard extends JFrame {
         allMenuItem.addActionListener(e -> handleCategorySelection("all"));
         categoryMenu.add(allMenuItem);
 
-        for(String type : getAllDocumentTypes()){
+        for(String type : DocumentTypes.getAllDocumentTypes()){
             JMenuItem categoryMenuItem = new JMenuItem(type);
             categoryMenuItem.addActionListener(e -> handleCategorySelection(type));
             categoryMenu.add(categoryMenuItem);
         }
         
+        // Creating the “Diagnostics” menu
+        JMenu diagnosticsMenu = new JMenu("Diagnostics");
+        JMenuItem performanceMenuItem = new JMenuItem("Performance");
+        performanceMenuItem.addActionListener(e -> new DiagnosticsDialog(this, service).setVisible(true));
+        diagnosticsMenu.add(performanceMenuItem);
+
         // Adding a menu to the menu bar
         menuBar.add(fileMenu);
         menuBar.add(categoryMenu);
+        menuBar.add(diagnosticsMenu);
+
+        // Branch filter next to the category menu when several branch workbooks are loaded
+        if (service.isFederation()) {
+            branchMenu = new JMenu("Branch");
+            updateBranchMenu();
+            menuBar.add(branchMenu);
+        }
         
         // Setting up the menu bar
         setJMenuBar(menuBar);
@@ -294,31 +269,23 @@ public class OptimizedDashboard extends JFrame {
     // Processing import function
     private void handleImport() {
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setFileFilter(new FileNameExtensionFilter("Excel Files", "xlsx", "xls"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Excel / CSV Files", "xlsx", "xls", "csv"));
         
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
             try {
-                // Get the application data catalog
-                String dataDir = System.getProperty("user.dir");
-                // Build target file path
-                String targetPath = dataDir + "/data.xlsx";
-                
-                // Reproduction of documents
-                Files.copy(selectedFile.toPath(), 
-                          Paths.get(targetPath), 
-                          StandardCopyOption.REPLACE_EXISTING);
-                
-                // Update data and refresh display
-                dataReader = new ExcelDataReader(targetPath);
-                dataReader.readExcelData();
-                updateDashboard();
-                
-                JOptionPane.showMessageDialog(this, 
-                    "file imported successfully！", 
-                    "success", 
-                    JOptionPane.INFORMATION_MESSAGE);
+                // The service reads the imported file in the background (superseding a refresh that is still parsing
+                // the old one); in follow mode it is just another dropped file, in a federation another partition
+                service.importFile(selectedFile.toPath());
+                viewedVersion = null;
+
+                if (!service.isFollowing() && !service.isFederation()) {
+                    JOptionPane.showMessageDialog(this, 
+                        "file imported successfully！", 
+                        "success", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                }
                     
             } catch (IOException ex) {
                 JOptionPane.showMessageDialog(this, 
@@ -329,39 +296,132 @@ public class OptimizedDashboard extends JFrame {
             }
         }
     }
-    
+
+    // Another window on the same data service, e.g. one per document type group on a second monitor
+    private void openNewWindow() {
+        OptimizedDashboard window = new OptimizedDashboard(service);
+        window.setLocation(getX() + 40, getY() + 40);
+        window.setVisible(true);
+    }
+
+    // Rebuild the branch menu from the branches currently loaded
+    private void updateBranchMenu() {
+        branchMenu.removeAll();
+        JMenuItem allMenuItem = new JMenuItem("All");
+        allMenuItem.addActionListener(e -> handleBranchSelection(WorkbookFederation.ALL_BRANCHES));
+        branchMenu.add(allMenuItem);
+
+        for (String branch : service.getBranches()) {
+            JMenuItem branchMenuItem = new JMenuItem(branch);
+            branchMenuItem.addActionListener(e -> handleBranchSelection(branch));
+            branchMenu.add(branchMenuItem);
+        }
+    }
+
+    // Processing branch selection: switch to the merged data of that branch, no file is read again
+    private void handleBranchSelection(String branch) {
+        selectedBranch = branch;
+        viewedVersion = null;
+        showLiveSnapshot(service.getSnapshot(branch));
+    }
+
     // Processing category selection
     private void handleCategorySelection(String category) {
         selectedDocumentType = category;
+        // Tell the windows of a multi-monitor setup apart
+        setTitle("all".equals(category) ? "Dashboard - Optimized Layout" : "Dashboard - " + category);
         updateDashboard();  // Update display after selecting category
     }
 
-    // Method to start a timed dashboard refresh
-    private void startAutoRefresh() {
-        // Use the scheduler to execute tasks periodically at intervals specified by REFRESH_INTERVAL
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                String excelFilePath = "data.xlsx";  // Specify the path to the Excel file
-
-                // Perform UI updates in the Event Dispatch Thread (EDT) to ensure thread-safety
-                SwingUtilities.invokeLater(() -> {
-                    // Reinitialize the data reader to read new Excel data
-                    dataReader = new ExcelDataReader(excelFilePath);
-                    dataReader.readExcelData();  // Reading data from an Excel file
-
-                    // Updating the Dashboard
-                    updateDashboard();
-                });
-            } catch (Exception e) {
-                e.printStackTrace();
+    // Called on the refresh thread for every snapshot the service publishes; the snapshot of the selected branch
+    // is built there (once for all windows on that branch) and the EDT only swaps it in
+    private void onPublished(DashboardSnapshot published) {
+        Object event = Phases.begin(Phases.Phase.SWAP);
+        String branch = selectedBranch;
+        DashboardSnapshot view = service.getSnapshot(branch);
+        SwingUtilities.invokeLater(() -> {
+            if (!isDisplayable()) {
+                return;
+            }
+            if (branchMenu != null) {
+                updateBranchMenu();
             }
-        }, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.SECONDS);  // Scheduling tasks at fixed intervals
+            // The branch was switched in the meantime
+            showLiveSnapshot(branch.equals(selectedBranch) ? view : service.getSnapshot(selectedBranch));
+            Phases.end(event, snapshot.getTaskList().size(), selectedDocumentType, null, snapshot.getVersion());
+        });
+    }
+
+    // Show new data (on the EDT); while an older version is selected on the timeline,
+    // the screen stays on that version until the slider is moved back to live
+    private void showLiveSnapshot(DashboardSnapshot published) {
+        liveSnapshot = published;
+        updateTimelineSlider();
+        if (viewedVersion == null) {
+            snapshot = published;
+            updateDashboard();
+        }
     }
 
+    // Match the slider to the retained versions, keeping the selected version (or live) selected
+    private void updateTimelineSlider() {
+        if (timeline == null || timelineSlider == null) {
+            return;
+        }
+        List<SnapshotTimeline.Version> versions = timeline.getVersions();
+        int selected = viewedVersion != null ? versions.indexOf(viewedVersion) : versions.size() - 1;
+        if (selected < 0) {
+            // The viewed version dropped out of the retention window, stay on the oldest one still retained
+            viewedVersion = versions.get(0);
+            snapshot = DashboardSnapshot.of(viewedVersion.toReader());
+            selected = 0;
+            updateDashboard();
+        }
+        // The timeline keeps the data of all branches only, so it cannot go back in time for one branch
+        boolean allBranches = WorkbookFederation.ALL_BRANCHES.equals(selectedBranch);
+        adjustingTimeline = true;
+        timelineSlider.setMaximum(Math.max(0, versions.size() - 1));
+        timelineSlider.setValue(selected);
+        timelineSlider.setEnabled(versions.size() > 1 && allBranches);
+        timelineSlider.setToolTipText(allBranches ? null : "Earlier versions are kept for all branches only");
+        adjustingTimeline = false;
+        updateTimelineLabel(versions);
+    }
+
+    private void updateTimelineLabel(List<SnapshotTimeline.Version> versions) {
+        int index = timelineSlider.getValue();
+        if (index >= versions.size() - 1) {
+            timelineLabel.setText("Live");
+        } else {
+            timelineLabel.setText(new SimpleDateFormat("MM-dd HH:mm:ss")
+                    .format(new Date(versions.get(index).getCapturedAt())));
+        }
+    }
+
+    // Render the version picked on the slider; nothing is read from the data files
+    private void handleTimelineChange(ChangeEvent e) {
+        if (adjustingTimeline) {
+            return;
+        }
+        List<SnapshotTimeline.Version> versions = timeline.getVersions();
+        updateTimelineLabel(versions);
+        if (timelineSlider.getValueIsAdjusting()) {
+            return;
+        }
+        int index = Math.min(timelineSlider.getValue(), versions.size() - 1);
+        SnapshotTimeline.Version version = index < versions.size() - 1 ? versions.get(index) : null;
+        if (version == viewedVersion) {
+            return;
+        }
+        viewedVersion = version;
+        snapshot = version != null ? DashboardSnapshot.of(version.toReader()) : liveSnapshot;
+        updateDashboard();
+    }
 
     // Add a way to update the dashboard
     // Ways to update dashboard
     private void updateDashboard() {
+        long start = System.nanoTime();
         try {
             // Update the data in the Task Statistics panel
             updateTaskSummaryCards();
@@ -381,6 +441,7 @@ public class OptimizedDashboard extends JFrame {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        EDT_RENDER.recordSince(start);
     }
 
 
@@ -400,13 +461,13 @@ public class OptimizedDashboard extends JFrame {
 
                 switch (titleLabel.getText()) {
                     case "New Tasks":
-                        countLabel.setText(String.valueOf(dataReader.getNewTasksCount(selectedDocumentType)));
+                        countLabel.setText(String.valueOf(snapshot.getNewTasksCount(selectedDocumentType)));
                         break;
                     case "Ongoing Tasks":
-                        countLabel.setText(String.valueOf(dataReader.getOngoingTasksCount(selectedDocumentType)));
+                        countLabel.setText(String.valueOf(snapshot.getOngoingTasksCount(selectedDocumentType)));
                         break;
                     case "Completed Tasks":
-                        countLabel.setText(String.valueOf(dataReader.getCompletedTasksCount(selectedDocumentType)));
+                        countLabel.setText(String.valueOf(snapshot.getCompletedTasksCount(selectedDocumentType)));
                         break;
                 }
             }
@@ -430,10 +491,10 @@ public class OptimizedDashboard extends JFrame {
 
                 switch (titleLabel.getText()) {
                     case "Within Target TAT":
-                        countLabel.setText(String.valueOf(dataReader.getNormalTATCount(selectedDocumentType)));
+                        countLabel.setText(String.valueOf(snapshot.getNormalTATCount(selectedDocumentType)));
                         break;
                     case "Over Target TAT":
-                        countLabel.setText(String.valueOf(dataReader.getAbnormalTATCount(selectedDocumentType)));
+                        countLabel.setText(String.valueOf(snapshot.getAbnormalTATCount(selectedDocumentType)));
                         break;
                 }
             }
@@ -443,75 +504,10 @@ public class OptimizedDashboard extends JFrame {
 
     // Methods for updating data tables
     private void updateDataTable() {
-        List<ExcelDataReader.TaskData> taskList = dataReader.getTaskList();
-        
-        // Filter tasks according to the type selected
-        List<ExcelDataReader.TaskData> filteredTasks = taskList.stream()
-                .filter(task -> selectedDocumentType.equals("all") || 
-                              task.getDocumentType().equals(selectedDocumentType))
-                .filter(task -> {
-                    if(selectedDate == null){
-                        return true;
-                    }
-                    try {
-                        // First convert Chinese dates to English dates
-                        String englishDate = convertDateToEnglishFormat(task.getDate());
-                        
-                        // Parsing English Date Strings into Date Objects
-                        SimpleDateFormat parseFormat = new SimpleDateFormat("dd-MMM-yy", Locale.ENGLISH);
-                        Date taskDate = parseFormat.parse(englishDate);
-                        
-                        // Formatting Date objects in yyyy-MM-dd format
-                        SimpleDateFormat outputFormat = new SimpleDateFormat("yyyy-MM-dd");
-                        String formattedTaskDate = outputFormat.format(taskDate);
-                        
-                        return formattedTaskDate.equals(selectedDate);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        return false;
-                    }
-                })
-                .collect(Collectors.toList());
-
-        Object[][] newData = new Object[filteredTasks.size()][dataTable.getColumnCount()];
-
-        // Updating table data
-        for (int i = 0; i < filteredTasks.size(); i++) {
-            ExcelDataReader.TaskData task = filteredTasks.get(i);
-            newData[i] = new Object[] {
-                    convertDateToEnglishFormat(task.getDate()),
-                    task.getDocumentSerial(),
-                    task.getDocumentType(),
-                    task.getReferenceNumber(),
-                    task.getDetail(),
-                    task.getClientName(),
-                    task.getStatus(),
-                    task.getTat(),
-                    task.getHandler(),
-                    task.getApplicationReceivedAt(),
-                    task.getScannedAt(),
-                    task.getTotalTimeAtBranch(),
-                    task.getVerifiedAt(),
-                    task.getTotalTimeForVerification(),
-                    task.getLodgementStartedAt(),
-                    task.getConfirmedAt(),
-                    task.getTotalTimeForEntry(),
-                    task.getComplianceVerifiedAt(),
-                    task.getAuthorizedAt()
-            };
-        }
-
-        String[] columnNames = {
-                "Date", "Document Serial", "Document Type", "Reference Number",
-                "Detail", "Client Name", "Status", "TAT", "Handler",
-                "Application Received At", "Scanned At", "Total Time At Branch",
-                "Verified At", "Total Time For Verification",
-                "Lodgement Started At", "Confirmed At", "Total Time For Entry",
-                "Compliance Verified At", "Authorized At"
-        };
-
         // Updating the table model with new data and column names
-        dataTable.setModel(new DefaultTableModel(newData, columnNames));
+        Object event = Phases.begin(Phases.Phase.TABLE);
+        dataTable.setModel(DashboardModels.taskTableModel(snapshot, selectedDocumentType, selectedDate));
+        Phases.end(event, dataTable.getRowCount(), selectedDocumentType, null, snapshot.getVersion());
 
         // Setting the basic properties of the form
         dataTable.setFillsViewportHeight(true);
@@ -539,20 +535,19 @@ public class OptimizedDashboard extends JFrame {
     // Modify window close handling
     @Override
     public void dispose() {
-        // Turn off the timer and stop scheduling tasks
-        scheduler.shutdown();
-        try {
-            // Wait for the timer to turn off completely, up to 2 seconds
-            if (!scheduler.awaitTermination(2, TimeUnit.SECONDS)) {
-                // If the timer is not closed within 2 seconds, force the timer to be closed
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            // Force the timer to close if the thread is interrupted while waiting
-            scheduler.shutdownNow();
+        if (!isDisplayable()) {
+            super.dispose();
+            return;
         }
-
+        // Stop showing new data; the service keeps running for the other windows
+        service.removeListener(publishListener);
         super.dispose();
+
+        // The last window stops the refreshes (waiting up to 2 seconds for one that is running) and ends the application
+        if (OPEN_WINDOWS.decrementAndGet() == 0) {
+            service.shutdown();
+            System.exit(0);
+        }
     }
 
 
@@ -560,17 +555,23 @@ public class OptimizedDashboard extends JFrame {
     private JPanel createTaskSummaryPanel() {
         // Use the GridLayout layout manager to create a 1-row, 3-column panel
         JPanel panel = new JPanel(new GridLayout(1, 3, 15, 0));
-        panel.add(createTaskCard("New Tasks", dataReader.getNewTasksCount(selectedDocumentType), NEW_TASK_COLOR));  // 新任务卡片
-        panel.add(createTaskCard("Ongoing Tasks", dataReader.getOngoingTasksCount(selectedDocumentType), ONGOING_TASK_COLOR));  // 进行中任务卡片
-        panel.add(createTaskCard("Completed Tasks", dataReader.getCompletedTasksCount(selectedDocumentType), COMPLETED_TASK_COLOR));  // 已完成任务卡片
+        panel.add(createTaskCard("New Tasks", snapshot.getNewTasksCount(selectedDocumentType), NEW_TASK_COLOR));  // 新任务卡片
+        panel.add(createTaskCard("Ongoing Tasks", snapshot.getOngoingTasksCount(selectedDocumentType), ONGOING_TASK_COLOR));  // 进行中任务卡片
+        panel.add(createTaskCard("Completed Tasks", snapshot.getCompletedTasksCount(selectedDocumentType), COMPLETED_TASK_COLOR));  // 已完成任务卡片
         return panel;
     }
 
     // Create panels for task status indication areas
     private JPanel createTaskStatusPanel() {
-        JPanel panel = new JPanel(new GridLayout(1, 2, 15, 0));
-        panel.add(createStatusCard("Within Target TAT", dataReader.getNormalTATCount(selectedDocumentType), WITHIN_TAT_COLOR));  // 在目标时限内任务卡片
-        panel.add(createStatusCard("Over Target TAT", dataReader.getAbnormalTATCount(selectedDocumentType), OVER_TAT_COLOR));  // 超出目标时限任务卡片
+        JPanel panel = new JPanel(new GridLayout(1, 3, 15, 0));
+        panel.add(createStatusCard("Within Target TAT", snapshot.getNormalTATCount(selectedDocumentType), WITHIN_TAT_COLOR));  // 在目标时限内任务卡片
+        panel.add(createStatusCard("Over Target TAT", snapshot.getAbnormalTATCount(selectedDocumentType), OVER_TAT_COLOR));  // 超出目标时限任务卡片
+
+        // How far over (or under) the target the completed tasks are; filled in with the charts, for the same days
+        JPanel tatCard = createStatusCard("TAT Percentiles", 0, PRIMARY_COLOR);
+        tatPercentilesLabel = (JLabel) tatCard.getComponent(1);
+        tatPercentilesLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        panel.add(tatCard);
         return panel;
     }
 
@@ -589,12 +590,22 @@ public class OptimizedDashboard extends JFrame {
         // Adding a click event listener for the Week View button
         weeklyButton.addActionListener(e -> {
             isWeeklyView = true;  // Set to weekly view
+            isTrendView = false;
             updateCharts();
         });
 
         // Adding a click event listener for the Month View button
         monthlyButton.addActionListener(e -> {
             isWeeklyView = false;
+            isTrendView = false;
+            updateCharts();
+        });
+
+        // The 12 month trend is read from the local history, not from the current data file
+        JButton trendButton = createStyledButton("12 Months");
+        trendButton.setEnabled(history != null);
+        trendButton.addActionListener(e -> {
+            isTrendView = true;
             updateCharts();
         });
 
@@ -618,6 +629,15 @@ public class OptimizedDashboard extends JFrame {
             }
         });
 
+        // Timeline of the retained versions, to show the dashboard as it was after an earlier refresh
+        timelineSlider = new JSlider(0, 0, 0);
+        timelineSlider.setPreferredSize(new Dimension(160, 28));
+        timelineSlider.setBackground(BACKGROUND_COLOR);
+        timelineSlider.setEnabled(false);
+        timelineSlider.addChangeListener(this::handleTimelineChange);
+        timelineLabel = new JLabel("Live");
+        timelineLabel.setPreferredSize(new Dimension(95, 28));
+
         // 重置按钮
         JButton resetButton = createStyledButton("Reset");
         resetButton.addActionListener(e -> {
@@ -631,14 +651,23 @@ public class OptimizedDashboard extends JFrame {
         Dimension buttonSize = new Dimension(100, 28);
         weeklyButton.setPreferredSize(buttonSize);
         monthlyButton.setPreferredSize(buttonSize);
+        trendButton.setPreferredSize(buttonSize);
         panel.add(weeklyButton);
         panel.add(Box.createHorizontalStrut(8));
         panel.add(monthlyButton);
+        panel.add(Box.createHorizontalStrut(8));
+        panel.add(trendButton);
         panel.add(Box.createHorizontalStrut(10));
         panel.add(new JLabel("Select a Date:"));
         panel.add(chartDateChooser);
         panel.add(Box.createHorizontalStrut(10));
         panel.add(resetButton);
+        if (timeline != null) {
+            panel.add(Box.createHorizontalStrut(10));
+            panel.add(timelineSlider);
+            panel.add(timelineLabel);
+            updateTimelineSlider();
+        }
 
         return panel;
     }
@@ -653,6 +682,7 @@ public class OptimizedDashboard extends JFrame {
         // Create new Line Chart and Bar Chart panels, passing in 350 as the height
         lineChartPanel = createLineChart(350);
         barChartPanel = createBarChart(350);
+        updateTatPercentiles();
 
         // Set GridBagConstraints for adjusting the layout of the component
         GridBagConstraints gbc = new GridBagConstraints();
@@ -681,6 +711,29 @@ public class OptimizedDashboard extends JFrame {
     }
 
 
+    // p50 / p90 / p99 / max of the TAT (h:mm) in the days of the chart view: the last five work days, the month,
+    // or every day loaded for the 12 month trend; the target only applies to a single document type
+    private void updateTatPercentiles() {
+        TatHistogram tat = isTrendView
+                ? snapshot.getTatHistogram(selectedDocumentType)
+                : DashboardSeries.tatHistogram(snapshot, selectedDocumentType, selectedDate, isWeeklyView);
+        if (tat.getCount() == 0) {
+            tatPercentilesLabel.setText("No completed tasks");
+            return;
+        }
+        String target = "all".equals(selectedDocumentType) ? "target by type"
+                : "target " + DocumentTypes.getDocumentTatHours(selectedDocumentType) + ":00";
+        tatPercentilesLabel.setText("<html><center>p50 " + hoursMinutes(tat.percentile(50))
+                + " · p90 " + hoursMinutes(tat.percentile(90))
+                + " · p99 " + hoursMinutes(tat.percentile(99))
+                + "<br>max " + hoursMinutes(tat.getMax()) + " · " + target + "</center></html>");
+    }
+
+    private static String hoursMinutes(long seconds) {
+        return String.format(Locale.ENGLISH, "%d:%02d", seconds / 3600, seconds % 3600 / 60);
+    }
+
+
     // Creating Task Cards
     private JPanel createTaskCard(String title, int count, Color color) {
 
@@ -754,8 +807,9 @@ public class OptimizedDashboard extends JFrame {
         }
 
         JFreeChart lineChart = ChartFactory.createLineChart(
-                isWeeklyView ? "Weekly Completed Tasks Trend" : "Monthly Completed Tasks Trend",
-                isWeeklyView ? "Day of Week" : "Week",
+                isTrendView ? "12 Month Completed Tasks Trend"
+                        : isWeeklyView ? "Weekly Completed Tasks Trend" : "Monthly Completed Tasks Trend",
+                isTrendView ? "Month" : isWeeklyView ? "Day of Week" : "Week",
                 "Count",
                 createLineDataset()
         );
@@ -812,42 +866,24 @@ public class OptimizedDashboard extends JFrame {
 
     // Creating Line Chart Data Sets
     private CategoryDataset createLineDataset() {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-
-        if (isWeeklyView) {
-            List<WorkDay> workDays = getLastFiveWorkDays();
-
-            for (WorkDay workDay : workDays) {
-                String date = workDay.getDate();
-                String label = workDay.getLabel() + "（"+ convertDateToEnglishFormat(date) +"）";
-                List<ExcelDataReader.TaskData> dayTasks = dataReader.getTasksByDate(date);
+        Object event = Phases.begin(Phases.Phase.LINE_DATASET);
+        if (!isTrendView) {
+            return endDatasetEvent(event,
+                    DashboardModels.lineDataset(snapshot, selectedDocumentType, selectedDate, isWeeklyView));
+        }
 
-                // 根据选择的类型筛选任务
-                long completedTasks = dayTasks.stream()
-                        .filter(task -> "LODGE".equalsIgnoreCase(task.getStatus()))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .count();
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        addTrendSeries(dataset, TimeSeriesStore.Metric.COMPLETED, "Completed Tasks");
+        return endDatasetEvent(event, dataset);
+    }
 
-                dataset.addValue(completedTasks, "Completed Tasks", label);
-            }
-        } else {
-            List<ExcelDataReader.WeekData> weekDataList = dataReader.getMonthlyWeekData(selectedDate);
-            for (ExcelDataReader.WeekData weekData : weekDataList) {
-                String weekLabel = weekData.getWeekLabel();
-                List<ExcelDataReader.TaskData> weekTasks = weekData.getTasks();
-
-                // 根据选择的类型筛选任务
-                long completedTasks = weekTasks.stream()
-                        .filter(task -> "LODGE".equalsIgnoreCase(task.getStatus()))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .count();
-
-                dataset.addValue(completedTasks, "Completed Tasks", weekLabel);
-            }
+    // Finish the flight recorder event of a chart dataset (when events are on) and pass the dataset through
+    private CategoryDataset endDatasetEvent(Object event, CategoryDataset dataset) {
+        if (event != null) {
+            String view = isTrendView ? "trend" : isWeeklyView ? "weekly" : "monthly";
+            Phases.end(event, (long) dataset.getRowCount() * dataset.getColumnCount(), selectedDocumentType, view,
+                    snapshot.getVersion());
         }
-
         return dataset;
     }
 
@@ -856,7 +892,7 @@ public class OptimizedDashboard extends JFrame {
     private ChartPanel createBarChart(int height) {
 
         JFreeChart barChart = ChartFactory.createBarChart(
-                "Last 5 Working Days Status Distribution",
+                isTrendView ? "Last 12 Months Status Distribution" : "Last 5 Working Days Status Distribution",
                 "Date",
                 "Count",
                 createBarDataset()
@@ -917,226 +953,49 @@ public class OptimizedDashboard extends JFrame {
 
     // Modifying Bar Chart Data Sets
     private CategoryDataset createBarDataset() {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-
-        if (isWeeklyView) {
-            List<WorkDay> workDays = getLastFiveWorkDays();
-
-            for (WorkDay workDay : workDays) {
-                String date = workDay.getDate();
-                String label = workDay.getLabel() + "（" + convertDateToEnglishFormat(date) + "）";
-                List<ExcelDataReader.TaskData> dayTasks = dataReader.getTasksByDate(date);
-
-                // 根据选择的类型筛选任务
-                long newTasks = dayTasks.stream()
-                        .filter(task -> task.getDate().equals(date))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .count();
-
-                long ongoingTasks = dayTasks.stream()
-                        .filter(task -> "PENDING".equalsIgnoreCase(task.getStatus()))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .count();
-
-                long completedTasks = dayTasks.stream()
-                        .filter(task -> "LODGE".equalsIgnoreCase(task.getStatus()))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .count();
-
-                long withinTAT = dayTasks.stream()
-                        .filter(task -> "LODGE".equalsIgnoreCase(task.getStatus()))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .filter(task -> isWithinTargetTAT(task.getTat(), selectedDocumentType))
-                        .count();
-
-                long overTAT = dayTasks.stream()
-                        .filter(task -> "LODGE".equalsIgnoreCase(task.getStatus()))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .filter(task -> !isWithinTargetTAT(task.getTat(), selectedDocumentType))
-                        .count();
-
-                dataset.addValue(newTasks, "New Tasks", label);
-                dataset.addValue(ongoingTasks, "Ongoing Tasks", label);
-                dataset.addValue(completedTasks, "Completed Tasks", label);
-                dataset.addValue(withinTAT, "Within Target TAT", label);
-                dataset.addValue(overTAT, "Over Target TAT", label);
-            }
-        } else {
-            List<ExcelDataReader.WeekData> weekDataList = dataReader.getMonthlyWeekData(selectedDate);
-            for (ExcelDataReader.WeekData weekData : weekDataList) {
-                String weekLabel = weekData.getWeekLabel();
-                List<ExcelDataReader.TaskData> weekTasks = weekData.getTasks();
-
-                // 根据选择的类型筛选任务
-                long completedTasks = weekTasks.stream()
-                        .filter(task -> "LODGE".equalsIgnoreCase(task.getStatus()))
-                        .filter(task -> selectedDocumentType.equals("all") || 
-                                      task.getDocumentType().equals(selectedDocumentType))
-                        .count();
-
-                dataset.addValue(completedTasks, "Completed Tasks", weekLabel);
-            }
+        Object event = Phases.begin(Phases.Phase.BAR_DATASET);
+        if (!isTrendView) {
+            return endDatasetEvent(event,
+                    DashboardModels.barDataset(snapshot, selectedDocumentType, selectedDate, isWeeklyView));
         }
 
-        return dataset;
-    }
-
-
-    // Auxiliary method: determining whether the TAT is within the target time
-    private boolean isWithinTargetTAT(String tatString, String documentType) {
-        try {
-
-            int documentTatHours = getDocumentTatHours(documentType);
-
-            // Returns false if the TAT string is null or a space
-            if (tatString == null || tatString.trim().isEmpty()) {
-                return false;
-            }
-
-            // Split the TAT string by colons to get hours, minutes and seconds
-            String[] parts = tatString.split(":");
-            if (parts.length >= 3) {
-
-                int hours = Integer.parseInt(parts[0]);
-                int minutes = Integer.parseInt(parts[1]);
-                int seconds = Integer.parseInt(parts[2]);
-
-                // Calculate total TAT seconds
-                int totalSeconds = hours * 3600 + minutes * 60 + seconds;
-
-                // Returns true if the total number of TAT seconds is less than or equal to 4 hours (14,400 seconds), indicating that the target time in the
-                return totalSeconds <= documentTatHours * 3600;
-            }
-        } catch (Exception e) {
-            e.printStackTrace(); // Catch exceptions and print stack information
-        }
-        return false;
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        addTrendSeries(dataset, TimeSeriesStore.Metric.TOTAL, "New Tasks");
+        addTrendSeries(dataset, TimeSeriesStore.Metric.ONGOING, "Ongoing Tasks");
+        addTrendSeries(dataset, TimeSeriesStore.Metric.COMPLETED, "Completed Tasks");
+        addTrendSeries(dataset, TimeSeriesStore.Metric.WITHIN_TAT, "Within Target TAT");
+        addTrendSeries(dataset, TimeSeriesStore.Metric.OVER_TAT, "Over Target TAT");
+        return endDatasetEvent(event, dataset);
     }
 
 
-    private static class WorkDay {
-        private final String date;
-        private final String label;
-
-        public WorkDay(String date, String label) {
-            this.date = date;
-            this.label = label;
+    // Add one metric of the last 12 months (up to the selected date's month) from the local history
+    private void addTrendSeries(DefaultCategoryDataset dataset, TimeSeriesStore.Metric metric, String series) {
+        if (history == null) {
+            return;
         }
+        YearMonth lastMonth = selectedDate != null ? YearMonth.from(LocalDate.parse(selectedDate)) : YearMonth.now();
+        Map<YearMonth, Integer> totals = history.getMonthlyTotals(selectedDocumentType, metric,
+                lastMonth.minusMonths(TREND_MONTHS - 1), lastMonth);
 
-        // Get the actual date
-        public String getDate() { return date; }
-
-        // Get display labels
-        public String getLabel() { return label; }
-    }
-
-    // Get the last 5 business days and their labels
-    private List<WorkDay> getLastFiveWorkDays() {
-        List<WorkDay> workDays = new ArrayList<>();
-        LocalDate currentDate = LocalDate.now();
-        if (selectedDate != null) {
-            currentDate = LocalDate.parse(selectedDate);
-        }
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("d-MMM-yy");
-
-
-        while (workDays.size() < 5) {
-            //  If the current date is not a Saturday or Sunday, it is considered a weekday
-            if (currentDate.getDayOfWeek() != DayOfWeek.SATURDAY &&
-                    currentDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-
-                String date = currentDate.format(dateFormatter);
-
-                String label = currentDate.getDayOfWeek()
-                        .getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
-
-                workDays.add(0, new WorkDay(date, label));
-            }
-            // Current date minus one day to check if the previous day was a business day
-            currentDate = currentDate.minusDays(1);
-        }
-
-        return workDays;
-    }
-
-
-    private String convertChineseMonthToEnglish(String chineseMonth) {
-        switch (chineseMonth) {
-            case "一月": return "Jan";
-            case "二月": return "Feb";
-            case "三月": return "Mar";
-            case "四月": return "Apr";
-            case "五月": return "May";
-            case "六月": return "Jun";
-            case "七月": return "Jul";
-            case "八月": return "Aug";
-            case "九月": return "Sep";
-            case "十月": return "Oct";
-            case "十一月": return "Nov";
-            case "十二月": return "Dec";
-            default: return chineseMonth;
+        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM yy", Locale.ENGLISH);
+        for (Map.Entry<YearMonth, Integer> entry : totals.entrySet()) {
+            dataset.addValue(entry.getValue(), series, entry.getKey().format(monthFormatter));
         }
     }
 
     public String convertDateToEnglishFormat(String dateString) {
-
-        String[] parts = dateString.split("-");
-        String day = parts[0];
-        String month = convertChineseMonthToEnglish(parts[1]);
-        String year = parts[2];
-
-
-        return day + "-" + month + "-" + year;
+        return TaskDates.toEnglish(dateString);
     }
 
 
 
     private JTable createDataTable() {
 
-        String[] columnNames = {
-                "Date", "Document Serial", "Document Type", "Reference Number", "Detail", "Client Name", "Status",
-                "TAT", "Handler", "Application Received At", "Scanned At", "Total Time At Branch", "Verified At",
-                "Total Time For Verification", "Lodgement Started At", "Confirmed At", "Total Time For Entry",
-                "Compliance Verified At", "Authorized At"
-        };
-
-
-        List<ExcelDataReader.TaskData> taskList = dataReader.getTaskList();
-        Object[][] data = new Object[taskList.size()][columnNames.length];
-
-
-        for (int i = 0; i < taskList.size(); i++) {
-            ExcelDataReader.TaskData task = taskList.get(i);
-            data[i] = new Object[] {
-                    convertDateToEnglishFormat(task.getDate()),  // 日期转换为英文格式
-                    task.getDocumentSerial(),
-                    task.getDocumentType(),
-                    task.getReferenceNumber(),
-                    task.getDetail(),
-                    task.getClientName(),
-                    task.getStatus(),
-                    task.getTat(),
-                    task.getHandler(),
-                    task.getApplicationReceivedAt(),
-                    task.getScannedAt(),
-                    task.getTotalTimeAtBranch(),
-                    task.getVerifiedAt(),
-                    task.getTotalTimeForVerification(),
-                    task.getLodgementStartedAt(),
-                    task.getConfirmedAt(),
-                    task.getTotalTimeForEntry(),
-                    task.getComplianceVerifiedAt(),
-                    task.getAuthorizedAt()
-            };
-        }
+        Object[][] data = DashboardModels.taskRows(snapshot.getTaskList());
 
         // Create a custom JTable for displaying data
-        dataTable = new JTable(data, columnNames) {
+        dataTable = new JTable(data, DashboardModels.TABLE_COLUMNS) {
             @Override
             public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
                 Component c = super.prepareRenderer(renderer, row, column);
@@ -1172,7 +1031,7 @@ public class OptimizedDashboard extends JFrame {
 
             private boolean isWithinTargetTAT(String tatString, String documentType) {
                 try {
-                    int documentTatHours = getDocumentTatHours(documentType);
+                    int documentTatHours = DocumentTypes.getDocumentTatHours(documentType);
 
                     if (tatString == null || tatString.trim().isEmpty()) {
                         return false;
@@ -1275,11 +1134,20 @@ public class OptimizedDashboard extends JFrame {
     public static void main(String[] args) {
         // Use SwingUtilities.invokeLater to ensure that the interface is started in an event dispatch thread
         SwingUtilities.invokeLater(() -> {
-            // Get the current working directory and splice out the path to the data files
-            String excelPath = System.getProperty("user.dir") + "/data.xlsx";
-
-            // Create an instance of OptimizedDashboard, passing in the path to the file
-            OptimizedDashboard dashboard = new OptimizedDashboard(excelPath);
+            DashboardConfig config = DashboardConfig.get();
+
+            // Workbooks or globs given on the command line (or source.paths) are loaded as a branch federation
+            WorkbookFederation federation = args.length > 0
+                    ? new WorkbookFederation(Arrays.asList(args),
+                            config.getString("source.branchPattern", WorkbookFederation.DEFAULT_BRANCH_PATTERN),
+                            config.getInt("source.parallelism", Runtime.getRuntime().availableProcessors()),
+                            SnapshotCache.fromConfig(config))
+                    : WorkbookFederation.fromConfig(config);
+
+            // Otherwise pick the data source from dashboard.properties / -Ddashboard.* (defaults to data.xlsx in the working directory)
+            OptimizedDashboard dashboard = federation != null
+                    ? new OptimizedDashboard(federation)
+                    : new OptimizedDashboard(TaskSources.fromConfig(config));
 
             // Settings dashboard is visible
             dashboard.setVisible(true);
@@ -0,0 +1,91 @@
+package com.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+public class DashboardConfig {
+    // Name of the optional configuration file looked up in the working directory
+    public static final String CONFIG_FILE = "dashboard.properties";
+
+    // Prefix used to override any configuration key with a -D system property
+    private static final String SYSTEM_PREFIX = "dashboard.";
+
+    private static volatile DashboardConfig instance;
+
+    private final Properties properties;
+
+    public DashboardConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    // Get the shared configuration, loading dashboard.properties on first use
+    public static DashboardConfig get() {
+        if (instance == null) {
+            synchronized (DashboardConfig.class) {
+                if (instance == null) {
+                    instance = load(Paths.get(System.getProperty("user.dir"), CONFIG_FILE));
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Load the configuration file (if present) and apply -Ddashboard.* overrides on top of it
+    public static DashboardConfig load(Path configFile) {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(configFile)) {
+            try (InputStream in = Files.newInputStream(configFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PREFIX)) {
+                properties.setProperty(name.substring(SYSTEM_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        return new DashboardConfig(properties);
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + key + ": " + properties.getProperty(key));
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + key + ": " + properties.getProperty(key));
+            return defaultValue;
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        try {
+            return Double.parseDouble(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number for " + key + ": " + properties.getProperty(key));
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,284 @@
+package com.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// What changed between two snapshots, small enough to push to every viewer after each refresh:
+// card counts that changed, chart points that changed and rows that were inserted, updated or removed
+// Rows are keyed like everywhere else (DocumentSerial, falling back to ReferenceNumber); rows with neither cannot be
+// addressed, so when one of them is added, changed or removed the delta is a reset and viewers reload everything
+// Chart points cover the default view of a viewer (today's weekly and monthly charts of every document type);
+// a viewer looking at another date, or any viewer once the current date moves on, fetches its series again instead
+public final class DashboardDelta {
+    public static final String WEEKLY = "weekly";
+    public static final String MONTHLY = "monthly";
+
+    private final long fromVersion;
+    private final long toVersion;
+    private final String currentDate;
+    private final List<CardChange> cards;
+    private final List<PointChange> points;
+    private final List<ExcelDataReader.TaskData> upserted;
+    private final List<String> removed;
+    private final boolean reset;
+
+    private DashboardDelta(long fromVersion, long toVersion, String currentDate, List<CardChange> cards,
+                           List<PointChange> points, List<ExcelDataReader.TaskData> upserted, List<String> removed,
+                           boolean reset) {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.currentDate = currentDate;
+        this.cards = Collections.unmodifiableList(cards);
+        this.points = Collections.unmodifiableList(points);
+        this.upserted = Collections.unmodifiableList(upserted);
+        this.removed = Collections.unmodifiableList(removed);
+        this.reset = reset;
+    }
+
+    public static DashboardDelta between(DashboardSnapshot previous, DashboardSnapshot current) {
+        List<ExcelDataReader.TaskData> upserted = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        boolean reset = diffRows(previous.getTaskList(), current.getTaskList(), upserted, removed);
+        return new DashboardDelta(previous.getVersion(), current.getVersion(), current.getCurrentDate(),
+                diffCards(previous, current), diffPoints(previous, current), upserted, removed, reset);
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    // Working date of the new snapshot
+    public String getCurrentDate() {
+        return currentDate;
+    }
+
+    public List<CardChange> getCards() {
+        return cards;
+    }
+
+    public List<PointChange> getPoints() {
+        return points;
+    }
+
+    // Inserted or changed rows, complete
+    public List<ExcelDataReader.TaskData> getUpserted() {
+        return upserted;
+    }
+
+    // Keys of the rows that are gone
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    // Rows without a key changed: the rows of this delta are incomplete and the viewer has to reload
+    public boolean isReset() {
+        return reset;
+    }
+
+    public boolean isEmpty() {
+        return !reset && cards.isEmpty() && points.isEmpty() && upserted.isEmpty() && removed.isEmpty();
+    }
+
+    private static List<CardChange> diffCards(DashboardSnapshot previous, DashboardSnapshot current) {
+        Set<String> types = new LinkedHashSet<>(current.getDocumentTypes());
+        types.addAll(previous.getDocumentTypes());
+
+        List<CardChange> changes = new ArrayList<>();
+        for (String type : types) {
+            for (DashboardSnapshot.Card card : DashboardSnapshot.Card.values()) {
+                int value = current.getCount(type, card);
+                if (value != previous.getCount(type, card)) {
+                    changes.add(new CardChange(type, card, value));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private static List<PointChange> diffPoints(DashboardSnapshot previous, DashboardSnapshot current) {
+        List<String> types = new ArrayList<>();
+        types.add(DashboardSnapshot.ALL_TYPES);
+        types.addAll(DocumentTypes.getAllDocumentTypes());
+
+        List<PointChange> changes = new ArrayList<>();
+        for (String type : types) {
+            // The weekly bar chart contains the weekly line, the monthly line and bar charts are the same series
+            diffSeries(WEEKLY, type, DashboardSeries.statusSeries(previous, type, null, true),
+                    DashboardSeries.statusSeries(current, type, null, true), changes);
+            diffSeries(MONTHLY, type, DashboardSeries.completedSeries(previous, type, null, false),
+                    DashboardSeries.completedSeries(current, type, null, false), changes);
+        }
+        return changes;
+    }
+
+    private static void diffSeries(String view, String type, Map<String, Map<String, Long>> before,
+                                   Map<String, Map<String, Long>> after, List<PointChange> changes) {
+        for (Map.Entry<String, Map<String, Long>> series : after.entrySet()) {
+            Map<String, Long> old = before.get(series.getKey());
+            for (Map.Entry<String, Long> point : series.getValue().entrySet()) {
+                Long oldValue = old == null ? null : old.get(point.getKey());
+                if (!point.getValue().equals(oldValue)) {
+                    changes.add(new PointChange(view, type, series.getKey(), point.getKey(), point.getValue()));
+                }
+            }
+        }
+    }
+
+    // Rows usually keep their position between refreshes, so they are compared position by position first
+    // and the previous rows are only indexed by key once a position holds a different task
+    // Returns true when the rows without a key differ (in number, order or content)
+    private static boolean diffRows(List<ExcelDataReader.TaskData> before, List<ExcelDataReader.TaskData> after,
+                                 List<ExcelDataReader.TaskData> upserted, List<String> removed) {
+        TaskIndex beforeIndex = null;
+        TaskIndex afterIndex = new TaskIndex(after.size());
+        int matched = 0;
+        int keyless = 0;
+        long keylessHash = 1;
+        for (int i = 0; i < after.size(); i++) {
+            ExcelDataReader.TaskData task = after.get(i);
+            String key = key(task);
+            if (key == null) {
+                keyless++;
+                keylessHash = 31 * keylessHash + task.getFingerprint();
+                continue;
+            }
+            if (afterIndex.putIfAbsent(key, i) >= 0) {
+                continue;
+            }
+            ExcelDataReader.TaskData old = i < before.size() ? before.get(i) : null;
+            if (old != task && (old == null || !key.equals(key(old)))) {
+                if (beforeIndex == null) {
+                    beforeIndex = index(before);
+                }
+                int position = beforeIndex.get(key);
+                old = position < 0 ? null : before.get(position);
+            }
+            if (old == null) {
+                upserted.add(task);
+                continue;
+            }
+            matched++;
+            if (old != task && old.getFingerprint() != task.getFingerprint()) {
+                upserted.add(task);
+            }
+        }
+
+        // Every previous key is still there, nothing was removed (keys are unique within a snapshot)
+        if (matched < (beforeIndex != null ? beforeIndex.size() : countKeys(before))) {
+            for (ExcelDataReader.TaskData old : before) {
+                String key = key(old);
+                if (key != null && afterIndex.get(key) < 0) {
+                    removed.add(key);
+                }
+            }
+        }
+        return keylessChanged(before, keyless, keylessHash);
+    }
+
+    private static boolean keylessChanged(List<ExcelDataReader.TaskData> before, int keyless, long keylessHash) {
+        int count = 0;
+        long hash = 1;
+        for (ExcelDataReader.TaskData task : before) {
+            if (key(task) == null) {
+                count++;
+                hash = 31 * hash + task.getFingerprint();
+            }
+        }
+        return count != keyless || hash != keylessHash;
+    }
+
+    private static TaskIndex index(List<ExcelDataReader.TaskData> tasks) {
+        TaskIndex index = new TaskIndex(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            String key = key(tasks.get(i));
+            if (key != null) {
+                index.putIfAbsent(key, i);
+            }
+        }
+        return index;
+    }
+
+    private static int countKeys(List<ExcelDataReader.TaskData> tasks) {
+        int count = 0;
+        for (ExcelDataReader.TaskData task : tasks) {
+            if (key(task) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String key(ExcelDataReader.TaskData task) {
+        return ExcelDataReader.taskKey(task.getDocumentSerial(), task.getReferenceNumber());
+    }
+
+    // New value of one card of one document type
+    public static final class CardChange {
+        private final String documentType;
+        private final DashboardSnapshot.Card card;
+        private final int value;
+
+        CardChange(String documentType, DashboardSnapshot.Card card, int value) {
+            this.documentType = documentType;
+            this.card = card;
+            this.value = value;
+        }
+
+        public String getDocumentType() {
+            return documentType;
+        }
+
+        public DashboardSnapshot.Card getCard() {
+            return card;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    // New value of one point of a chart series: view (WEEKLY or MONTHLY), document type, series name and category
+    public static final class PointChange {
+        private final String view;
+        private final String documentType;
+        private final String series;
+        private final String category;
+        private final long value;
+
+        PointChange(String view, String documentType, String series, String category, long value) {
+            this.view = view;
+            this.documentType = documentType;
+            this.series = series;
+            this.category = category;
+            this.value = value;
+        }
+
+        public String getView() {
+            return view;
+        }
+
+        public String getDocumentType() {
+            return documentType;
+        }
+
+        public String getSeries() {
+            return series;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public long getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.utils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Chart series of the dashboard, computed from a snapshot without any Swing or JFreeChart types,
+// so the window, the HTTP server and the command line tools show the same numbers
+// A series set maps series name -> (category label -> value), both in display order
+public class DashboardSeries {
+    public static final String NEW_TASKS = "New Tasks";
+    public static final String ONGOING_TASKS = "Ongoing Tasks";
+    public static final String COMPLETED_TASKS = "Completed Tasks";
+    public static final String WITHIN_TAT = "Within Target TAT";
+    public static final String OVER_TAT = "Over Target TAT";
+
+    // Line chart: completed tasks per work day of the last five (weekly) or per working week of the month (monthly)
+    public static Map<String, Map<String, Long>> completedSeries(DashboardSnapshot snapshot, String documentType,
+                                                               String selectedDate, boolean weekly) {
+        Map<String, Map<String, Long>> series = new LinkedHashMap<>();
+        Map<String, Long> completed = new LinkedHashMap<>();
+        series.put(COMPLETED_TASKS, completed);
+
+        if (weekly) {
+            for (WorkDay workDay : getLastFiveWorkDays(selectedDate)) {
+                List<ExcelDataReader.TaskData> dayTasks = snapshot.getTasksByDate(workDay.getDate());
+                completed.put(workDay.getDisplayLabel(), countCompleted(dayTasks, documentType));
+            }
+        } else {
+            for (ExcelDataReader.WeekData weekData : snapshot.getMonthlyWeekData(selectedDate)) {
+                completed.put(weekData.getWeekLabel(), countCompleted(weekData.getTasks(), documentType));
+            }
+        }
+        return series;
+    }
+
+    // Bar chart: new / ongoing / completed / within TAT / over TAT per work day (weekly),
+    // completed tasks per working week of the month (monthly)
+    public static Map<String, Map<String, Long>> statusSeries(DashboardSnapshot snapshot, String documentType,
+                                                            String selectedDate, boolean weekly) {
+        if (!weekly) {
+            return completedSeries(snapshot, documentType, selectedDate, false);
+        }
+
+        Map<String, Map<String, Long>> series = new LinkedHashMap<>();
+        Map<String, Long> newTasks = new LinkedHashMap<>();
+        Map<String, Long> ongoingTasks = new LinkedHashMap<>();
+        Map<String, Long> completedTasks = new LinkedHashMap<>();
+        Map<String, Long> withinTat = new LinkedHashMap<>();
+        Map<String, Long> overTat = new LinkedHashMap<>();
+        series.put(NEW_TASKS, newTasks);
+        series.put(ONGOING_TASKS, ongoingTasks);
+        series.put(COMPLETED_TASKS, completedTasks);
+        series.put(WITHIN_TAT, withinTat);
+        series.put(OVER_TAT, overTat);
+
+        for (WorkDay workDay : getLastFiveWorkDays(selectedDate)) {
+            long[] counts = new long[5];
+            for (ExcelDataReader.TaskData task : snapshot.getTasksByDate(workDay.getDate())) {
+                if (!matchesType(task, documentType)) {
+                    continue;
+                }
+                counts[0]++;
+                if ("PENDING".equalsIgnoreCase(task.getStatus())) {
+                    counts[1]++;
+                } else if ("LODGE".equalsIgnoreCase(task.getStatus())) {
+                    counts[2]++;
+                    // Target TAT of the selected category, as the screen has always done
+                    if (ExcelDataReader.isWithinTargetTAT(task.getTat(), documentType)) {
+                        counts[3]++;
+                    } else {
+                        counts[4]++;
+                    }
+                }
+            }
+            String label = workDay.getDisplayLabel();
+            newTasks.put(label, counts[0]);
+            ongoingTasks.put(label, counts[1]);
+            completedTasks.put(label, counts[2]);
+            withinTat.put(label, counts[3]);
+            overTat.put(label, counts[4]);
+        }
+        return series;
+    }
+
+    // TAT of the completed tasks in the days a view covers: the last five work days (weekly) or the month of the
+    // selected date (monthly); merged from the snapshot's per day histograms
+    public static TatHistogram tatHistogram(DashboardSnapshot snapshot, String documentType,
+                                            String selectedDate, boolean weekly) {
+        LocalDate endDate = selectedDate != null ? LocalDate.parse(selectedDate) : LocalDate.now();
+        if (weekly) {
+            // Back to the first of the five work days of getLastFiveWorkDays
+            LocalDate startDate = endDate.plusDays(1);
+            int workDays = 0;
+            while (workDays < 5) {
+                startDate = startDate.minusDays(1);
+                if (startDate.getDayOfWeek() != DayOfWeek.SATURDAY && startDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                    workDays++;
+                }
+            }
+            return snapshot.getTatHistogram(documentType, startDate, endDate);
+        }
+        YearMonth month = YearMonth.from(endDate);
+        return snapshot.getTatHistogram(documentType, month.atDay(1), month.atEndOfMonth());
+    }
+
+    // The last 5 business days up to the selected date (yyyy-MM-dd, or today), oldest first
+    public static List<WorkDay> getLastFiveWorkDays(String selectedDate) {
+        List<WorkDay> workDays = new ArrayList<>();
+        LocalDate currentDate = LocalDate.now();
+        if (selectedDate != null) {
+            currentDate = LocalDate.parse(selectedDate);
+        }
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("d-MMM-yy");
+
+        while (workDays.size() < 5) {
+            //  If the current date is not a Saturday or Sunday, it is considered a weekday
+            if (currentDate.getDayOfWeek() != DayOfWeek.SATURDAY &&
+                    currentDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
+
+                String date = currentDate.format(dateFormatter);
+
+                String label = currentDate.getDayOfWeek()
+                        .getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
+
+                workDays.add(0, new WorkDay(date, label));
+            }
+            // Current date minus one day to check if the previous day was a business day
+            currentDate = currentDate.minusDays(1);
+        }
+
+        return workDays;
+    }
+
+    private static long countCompleted(List<ExcelDataReader.TaskData> tasks, String documentType) {
+        long completed = 0;
+        for (ExcelDataReader.TaskData task : tasks) {
+            if ("LODGE".equalsIgnoreCase(task.getStatus()) && matchesType(task, documentType)) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    private static boolean matchesType(ExcelDataReader.TaskData task, String documentType) {
+        return "all".equals(documentType) || documentType.equals(task.getDocumentType());
+    }
+
+    public static class WorkDay {
+        private final String date;
+        private final String label;
+
+        public WorkDay(String date, String label) {
+            this.date = date;
+            this.label = label;
+        }
+
+        // Get the actual date
+        public String getDate() { return date; }
+
+        // Get display labels
+        public String getLabel() { return label; }
+
+        // Category label on the charts, e.g. "Mon（3-Feb-25）"
+        public String getDisplayLabel() {
+            return label + "（" + TaskDates.toEnglish(date) + "）";
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.utils;
+
+import com.metrics.Phases;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Immutable view of one refresh's data for the screen, exporters and the HTTP endpoints
+// Built once from an ExcelDataReader (off the EDT), then published through a volatile field or AtomicReference;
+// every field is final and nothing is mutated after construction, so any number of threads can read it
+// without locks or copies. Card counts are kept in one int array, rows in read-only lists indexed by date
+public final class DashboardSnapshot {
+    public static final String ALL_TYPES = "all";
+
+    public enum Card {
+        NEW, ONGOING, COMPLETED, WITHIN_TAT, OVER_TAT
+    }
+
+    private static final int CARDS = Card.values().length;
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final long createdAt;
+    private final String currentDate;
+
+    // Row of each document type in counts; ALL_TYPES is row 0
+    private final List<String> types;
+    private final Map<String, Integer> typeRows;
+    private final int[] counts;
+    private final int[] rowCounts;
+
+    private final List<ExcelDataReader.TaskData> tasks;
+    private final Map<String, List<ExcelDataReader.TaskData>> tasksByDate;
+    private final NavigableMap<LocalDate, List<ExcelDataReader.TaskData>> tasksByDay;
+
+    // Copies of the reader's TAT histograms by day, then by document type
+    private final NavigableMap<LocalDate, Map<String, TatHistogram>> tatByDay;
+
+    private DashboardSnapshot(ExcelDataReader reader) {
+        Object event = Phases.begin(Phases.Phase.AGGREGATE);
+        this.version = VERSIONS.incrementAndGet();
+        this.createdAt = System.currentTimeMillis();
+        this.currentDate = reader.getCurrentDate();
+
+        List<String> types = new ArrayList<>();
+        types.add(ALL_TYPES);
+        types.addAll(reader.getDocumentStats().keySet());
+        Map<String, Integer> rows = new HashMap<>();
+        int[] values = new int[types.size() * CARDS];
+        for (int row = 0; row < types.size(); row++) {
+            String type = types.get(row);
+            rows.put(type, row);
+            values[row * CARDS + Card.NEW.ordinal()] = reader.getNewTasksCount(type);
+            values[row * CARDS + Card.ONGOING.ordinal()] = reader.getOngoingTasksCount(type);
+            values[row * CARDS + Card.COMPLETED.ordinal()] = reader.getCompletedTasksCount(type);
+            values[row * CARDS + Card.WITHIN_TAT.ordinal()] = reader.getNormalTATCount(type);
+            values[row * CARDS + Card.OVER_TAT.ordinal()] = reader.getAbnormalTATCount(type);
+        }
+        this.types = Collections.unmodifiableList(types);
+        this.typeRows = Collections.unmodifiableMap(rows);
+        this.counts = values;
+
+        ExcelDataReader.TaskData[] rowArray = reader.getTaskList().toArray(new ExcelDataReader.TaskData[0]);
+        this.tasks = Collections.unmodifiableList(Arrays.asList(rowArray));
+
+        Map<String, List<ExcelDataReader.TaskData>> byDate = new HashMap<>();
+        Map<String, LocalDate> parsedDates = new HashMap<>();
+        int[] typeRowCounts = new int[types.size()];
+        typeRowCounts[0] = rowArray.length;
+        for (ExcelDataReader.TaskData task : rowArray) {
+            Integer row = rows.get(task.getDocumentType());
+            if (row != null && row > 0) {
+                typeRowCounts[row]++;
+            }
+            if (task.getDate() != null) {
+                byDate.computeIfAbsent(task.getDate(), key -> new ArrayList<>()).add(task);
+                parsedDates.computeIfAbsent(task.getDate(), TaskDates::parse);
+            }
+        }
+        Map<String, List<ExcelDataReader.TaskData>> readOnlyByDate = new HashMap<>();
+        TreeMap<LocalDate, List<ExcelDataReader.TaskData>> byDay = new TreeMap<>();
+        byDate.forEach((date, dateTasks) -> {
+            List<ExcelDataReader.TaskData> readOnly = Collections.unmodifiableList(dateTasks);
+            readOnlyByDate.put(date, readOnly);
+            LocalDate day = parsedDates.get(date);
+            if (day != null) {
+                // "3-Feb-25" and "03-Feb-25" are the same day
+                byDay.merge(day, readOnly, (first, second) -> {
+                    List<ExcelDataReader.TaskData> merged = new ArrayList<>(first);
+                    merged.addAll(second);
+                    return Collections.unmodifiableList(merged);
+                });
+            }
+        });
+        this.tasksByDate = Collections.unmodifiableMap(readOnlyByDate);
+        this.tasksByDay = Collections.unmodifiableNavigableMap(byDay);
+        this.rowCounts = typeRowCounts;
+
+        // The reader keeps changing its histograms in follow mode, so the snapshot holds copies
+        TreeMap<LocalDate, Map<String, TatHistogram>> tatDays = new TreeMap<>();
+        reader.getTatHistograms().forEach((date, byType) -> {
+            LocalDate day = parsedDates.computeIfAbsent(date, TaskDates::parse);
+            if (day != null) {
+                Map<String, TatHistogram> dayHistograms = tatDays.computeIfAbsent(day, key -> new HashMap<>());
+                byType.forEach((type, histogram) -> {
+                    TatHistogram existing = dayHistograms.get(type);
+                    if (existing == null) {
+                        dayHistograms.put(type, histogram.copy());
+                    } else {
+                        existing.merge(histogram);
+                    }
+                });
+            }
+        });
+        this.tatByDay = tatDays;
+        Phases.end(event, rowArray.length, null, null, version);
+    }
+
+    public static DashboardSnapshot of(ExcelDataReader reader) {
+        return new DashboardSnapshot(reader);
+    }
+
+    // Increases with every snapshot built in this process
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getCurrentDate() {
+        return currentDate;
+    }
+
+    // ALL_TYPES followed by the document types that have data
+    public List<String> getDocumentTypes() {
+        return types;
+    }
+
+    // Count of a card for one document type, or ALL_TYPES; 0 for unknown types
+    public int getCount(String documentType, Card card) {
+        Integer row = typeRows.get(documentType);
+        return row == null ? 0 : counts[row * CARDS + card.ordinal()];
+    }
+
+    public int getNewTasksCount(String documentType) {
+        return getCount(documentType, Card.NEW);
+    }
+
+    public int getOngoingTasksCount(String documentType) {
+        return getCount(documentType, Card.ONGOING);
+    }
+
+    public int getCompletedTasksCount(String documentType) {
+        return getCount(documentType, Card.COMPLETED);
+    }
+
+    public int getNormalTATCount(String documentType) {
+        return getCount(documentType, Card.WITHIN_TAT);
+    }
+
+    public int getAbnormalTATCount(String documentType) {
+        return getCount(documentType, Card.OVER_TAT);
+    }
+
+    // Number of rows of one document type, or of all rows for ALL_TYPES; 0 for unknown types
+    public int getRowCount(String documentType) {
+        Integer row = typeRows.get(documentType);
+        return row == null ? 0 : rowCounts[row];
+    }
+
+    // All rows, read-only
+    public List<ExcelDataReader.TaskData> getTaskList() {
+        return tasks;
+    }
+
+    // Rows whose date column is exactly the given string, read-only
+    public List<ExcelDataReader.TaskData> getTasksByDate(String date) {
+        return tasksByDate.getOrDefault(date, Collections.emptyList());
+    }
+
+    // Rows dated between the two days, both included
+    public List<ExcelDataReader.TaskData> getTasksByDateRange(LocalDate startDate, LocalDate endDate) {
+        List<ExcelDataReader.TaskData> result = new ArrayList<>();
+        for (List<ExcelDataReader.TaskData> dayTasks : tasksByDay.subMap(startDate, true, endDate, true).values()) {
+            result.addAll(dayTasks);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    // TAT of the completed tasks of one document type, or of all types, dated between the two days (both included)
+    // Merged from the per day histograms, so no row is looked at; the result belongs to the caller
+    public TatHistogram getTatHistogram(String documentType, LocalDate startDate, LocalDate endDate) {
+        return mergeTat(documentType, tatByDay.subMap(startDate, true, endDate, true).values());
+    }
+
+    // TAT of the completed tasks of one document type, or of all types, over every day
+    public TatHistogram getTatHistogram(String documentType) {
+        return mergeTat(documentType, tatByDay.values());
+    }
+
+    private static TatHistogram mergeTat(String documentType, Iterable<Map<String, TatHistogram>> days) {
+        TatHistogram result = new TatHistogram();
+        for (Map<String, TatHistogram> day : days) {
+            if (ALL_TYPES.equals(documentType)) {
+                day.values().forEach(result::merge);
+            } else {
+                TatHistogram histogram = day.get(documentType);
+                if (histogram != null) {
+                    result.merge(histogram);
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<ExcelDataReader.WeekData> getMonthlyWeekData(String selectedDate) {
+        return ExcelDataReader.getMonthlyWeekData(selectedDate, this::getTasksByDateRange);
+    }
+}
@@ -0,0 +1,106 @@
+package com.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Document types and their target TAT, shared by the Swing screen, the server and the command line tools
+public class DocumentTypes {
+    // Add new data structure to store document type and TAT information
+    public static class DocumentTypeInfo {
+        private final String type;
+        private final int tatHours;
+
+        public DocumentTypeInfo(String type, int tatHours) {
+            this.type = type;
+            this.tatHours = tatHours;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getTatHours() {
+            return tatHours;
+        }
+    }
+
+    // Create a static list to store all document type information
+    private static final List<DocumentTypeInfo> TYPES = new ArrayList<>();
+
+    // Read-only list of all document types
+    public static final List<DocumentTypeInfo> DOCUMENT_TYPES = Collections.unmodifiableList(TYPES);
+
+    static {
+        // 3 hours TAT
+        TYPES.add(new DocumentTypeInfo("Call Deposit - Customer Deposit", 3));
+        TYPES.add(new DocumentTypeInfo("Call Deposit - Withdraw Deposit", 3));
+        
+        // 6 hours TAT
+        TYPES.add(new DocumentTypeInfo("EColl - Export Collection", 6));
+        TYPES.add(new DocumentTypeInfo("Export - Packing Credit", 6));
+        TYPES.add(new DocumentTypeInfo("Export Document Memo", 6));
+        TYPES.add(new DocumentTypeInfo("Export-Reverse Packing Credit", 6));
+        
+        // 6 hours TAT
+        TYPES.add(new DocumentTypeInfo("FIDBC Acceptance Lodge", 6));
+        TYPES.add(new DocumentTypeInfo("FIDBC -Retire And Send", 6));
+        TYPES.add(new DocumentTypeInfo("IBC Lodeg", 6));
+        TYPES.add(new DocumentTypeInfo("Import Document - Lodgement", 6));
+        TYPES.add(new DocumentTypeInfo("Import Document - Settlement", 6));
+        TYPES.add(new DocumentTypeInfo("TR Reversal", 6));
+        
+        // 4 hours TAT
+        TYPES.add(new DocumentTypeInfo("Invoice Financial - ED", 4));
+        TYPES.add(new DocumentTypeInfo("Invoice Financial - Lodgement", 4));
+        TYPES.add(new DocumentTypeInfo("Invoice Financial - Retire", 4));
+        
+        // 6 hours TAT
+        TYPES.add(new DocumentTypeInfo("LC -Amend Scanned LC", 6));
+        TYPES.add(new DocumentTypeInfo("LC -Scanned LC", 6));
+        TYPES.add(new DocumentTypeInfo("LC -Web LC", 6));
+        
+        // 3 hours TAT
+        TYPES.add(new DocumentTypeInfo("Loan - Settlement", 3));
+        TYPES.add(new DocumentTypeInfo("Loan Disbursal", 3));
+        TYPES.add(new DocumentTypeInfo("Loan Installment Recovery", 3));
+        
+        // No specific TAT mentioned
+        TYPES.add(new DocumentTypeInfo("Outward Cheque Settlement", 3));
+        
+        // 4 hours TAT
+        TYPES.add(new DocumentTypeInfo("Outward Remittance", 4));
+        
+        // 3 hours TAT
+        TYPES.add(new DocumentTypeInfo("TD - Accept Deposit", 3));
+        TYPES.add(new DocumentTypeInfo("TD - Break Deposit", 3));
+        TYPES.add(new DocumentTypeInfo("TD - Renew Deposit", 3));
+        TYPES.add(new DocumentTypeInfo("TD-Amend Deposit", 3));
+        
+        // 3 hours TAT
+        TYPES.add(new DocumentTypeInfo("IL Transfers", 3));
+    }
+
+    // Add a method to get the TAT time of a document type
+    public static int getDocumentTatHours(String documentType) {
+        return DOCUMENT_TYPES.stream()
+                .filter(info -> info.getType().equals(documentType))
+                .findFirst()
+                .map(DocumentTypeInfo::getTatHours)
+                .orElse(0);  // Returns 0 if the corresponding document type is not found.
+    }
+
+    // Add a method to get all document types
+    public static List<String> getAllDocumentTypes() {
+        return DOCUMENT_TYPES.stream()
+                .map(DocumentTypeInfo::getType)
+                .collect(Collectors.toList());
+    }
+
+    // Add a method to check if the task is within the TAT time range
+    public static boolean isWithinTAT(String documentType, double actualTatHours) {
+        int targetTatHours = getDocumentTatHours(documentType);
+        return targetTatHours == 0 || actualTatHours <= targetTatHours;
+    }
+}
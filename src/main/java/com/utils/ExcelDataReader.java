@@ -1,25 +1,33 @@
 package com.utils;
 
-import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.annotation.ExcelProperty;
-import com.alibaba.excel.context.AnalysisContext;
-import com.alibaba.excel.read.listener.ReadListener;
-import com.ui.OptimizedDashboard;
+import com.metrics.Metrics;
+import com.metrics.Phases;
+import com.source.CompositeTaskSource;
+import com.source.TaskSource;
+import com.source.TaskSources;
 
 import lombok.Data;
+import lombok.Value;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.DayOfWeek;
 
 public class ExcelDataReader {
-    // File path
-    private String filePath;
+    // Where the task rows are loaded from (xlsx, csv, database)
+    private final TaskSource source;
 
     // Statistics for the day, using Map to store the number of tasks in each state
     private Map<String, Integer> currentStats;
@@ -29,6 +37,12 @@ public class ExcelDataReader {
     // Statistics by date, using Map to store statistics on different dates 
     private Map<String, Map<String, Integer>> dailyStats;
 
+    // TAT of the completed tasks by date, then by document type
+    private Map<String, Map<String, TatHistogram>> tatHistograms;
+
+    // Status counts by date, then by document type (the daily history records these)
+    private Map<String, Map<String, DayCounts>> dayCounts;
+
     //Weekly statistics, using Map to store statistics for different weeks
     private Map<String, Map<String, Integer>> weeklyStats;
 
@@ -38,12 +52,39 @@ public class ExcelDataReader {
     // current date
     private String currentDate; // The current date in the format “d-MMM-yyy”
 
+    // Rows are de-duplicated by DocumentSerial/ReferenceNumber; this decides which of two rows is kept
+    private MergeRule mergeRule = MergeRule.fromConfig(DashboardConfig.get());
+
+    // Position of each keyed task in taskList
+    private TaskIndex keyIndex = new TaskIndex();
+
+    // Rows read between two checks of the cancellation flag
+    private static final int CANCEL_CHECK_ROWS = 1024;
+
+    // Tells a running read that its result is no longer wanted (a newer refresh superseded it); null = never cancelled
+    private BooleanSupplier cancellation;
+    private int rowsSinceCancelCheck;
+
+    // Rows taken in and rows dropped for a missing Date or Status since the last flushMetrics()
+    private static final Metrics.Counter ROWS_PARSED = Metrics.counter("ingest.rowsParsed");
+    private static final Metrics.Counter ROWS_REJECTED = Metrics.counter("ingest.rowsRejected");
+    private static final Metrics.Gauge ROWS_PER_SECOND = Metrics.gauge("ingest.rowsPerSecond");
+    private long rowsParsed;
+    private long rowsRejected;
+
     // Constructor, accepts a file path parameter and initializes the statistics
     public ExcelDataReader(String filePath) {
-        this.filePath = filePath;
+        this(TaskSources.forPath(filePath));
+    }
+
+    // Constructor, accepts any task source and initializes the statistics
+    public ExcelDataReader(TaskSource source) {
+        this.source = source;
         this.currentStats = new HashMap<>(); // Initialize the day's statistics
         this.documentStats = new HashMap<>();
         this.dailyStats = new HashMap<>();
+        this.tatHistograms = new HashMap<>();
+        this.dayCounts = new HashMap<>();
         this.weeklyStats = new HashMap<>();
         this.taskList = new ArrayList<>();
         this.currentDate = getCurrentWorkingDate();
@@ -51,7 +92,7 @@ public class ExcelDataReader {
     }
 
     // Get the current working date in “d-MMM-yyy” format
-    private String getCurrentWorkingDate() {
+    public static String getCurrentWorkingDate() {
         // Use LocalDate to get the current date and format it using the specified date formatting mode (“d-MMM-yyy”)
         return LocalDate.now().format(
                 DateTimeFormatter.ofPattern("d-MMM-yy")
@@ -66,7 +107,7 @@ public class ExcelDataReader {
         currentStats.put("WITHIN_TAT", 0);
         currentStats.put("OVER_TAT", 0);
 
-        for (String documentType : OptimizedDashboard.getAllDocumentTypes()) {
+        for (String documentType : DocumentTypes.getAllDocumentTypes()) {
             Map<String, Integer> documentTypeStats = new HashMap<>();
             documentTypeStats.put("NEW", 0);
             documentTypeStats.put("ONGOING", 0);
@@ -79,13 +120,283 @@ public class ExcelDataReader {
 
     // Reading and processing Excel data
     public void readExcelData() {
-        // Use EasyExcel library to read Excel file with specified path, ExcelModel class to represent the mapping model of each row of data, TaskDataListener as data listener
-        EasyExcel.read(filePath, ExcelModel.class, new TaskDataListener())
-                .sheet()
-                .doRead();
+        // Every source adapter streams its rows through the same ingestion step
+        Object event = Phases.begin(Phases.Phase.INGEST);
+        long start = System.nanoTime();
+        try {
+            source.read(this::readRow);
+        } catch (IOException e) {
+            // No data is not the same as empty data: the caller keeps what it showed before
+            throw new UncheckedIOException("Cannot read " + source.getName(), e);
+        } catch (RuntimeException e) {
+            // The parser may wrap the exception thrown from the row handler
+            if (isCancelled()) {
+                throw new CancellationException("Read of " + source.getName() + " was superseded");
+            }
+            throw e;
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            if (rowsParsed > 0) {
+                ROWS_PER_SECOND.set(rowsParsed * 1_000_000_000L / Math.max(1, elapsedNanos));
+            }
+            Phases.end(event, rowsParsed, null, null, -1);
+            flushMetrics();
+        }
+
+        finishAggregation();
+    }
+
+    // Stop readExcelData() with a CancellationException, checked once per row batch, when the flag turns true
+    public void setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    private boolean isCancelled() {
+        return cancellation != null && cancellation.getAsBoolean();
+    }
+
+    private void readRow(ExcelModel data) {
+        if (cancellation != null && ++rowsSinceCancelCheck >= CANCEL_CHECK_ROWS) {
+            rowsSinceCancelCheck = 0;
+            if (cancellation.getAsBoolean()) {
+                throw new CancellationException("Read of " + source.getName() + " was superseded");
+            }
+        }
+        upsert(data);
+    }
+
+    // Merge rows into the existing data: a row whose DocumentSerial (or ReferenceNumber) is already known is merged with it
+    public void mergeRows(List<ExcelModel> rows) {
+        for (ExcelModel row : rows) {
+            upsert(row);
+        }
+        flushMetrics();
+        finishAggregation();
+    }
+
+    // Row counts are kept per reader while reading and added to the shared counters once per read
+    private void flushMetrics() {
+        ROWS_PARSED.add(rowsParsed);
+        ROWS_REJECTED.add(rowsRejected);
+        rowsParsed = 0;
+        rowsRejected = 0;
+    }
+
+    // Combine several readers (for example one per workbook) into one: statistics are summed and rows concatenated
+    // A document present in several parts is kept once (per the merge rule, later parts count as later writes)
+    // and the losing copy is taken out of the summed statistics
+    // The parts are not modified, so they can be kept and combined again in another grouping
+    public static ExcelDataReader combine(List<ExcelDataReader> readers) {
+        List<TaskSource> sources = new ArrayList<>();
+        int totalRows = 0;
+        for (ExcelDataReader reader : readers) {
+            sources.add(reader.source);
+            totalRows += reader.taskList.size();
+        }
+
+        ExcelDataReader combined = new ExcelDataReader(new CompositeTaskSource(sources));
+        combined.taskList = new ArrayList<>(totalRows);
+        combined.keyIndex = new TaskIndex(totalRows);
+        for (ExcelDataReader reader : readers) {
+            sumStats(combined.currentStats, reader.currentStats);
+            reader.documentStats.forEach((type, stats) ->
+                    sumStats(combined.documentStats.computeIfAbsent(type, key -> new HashMap<>()), stats));
+            reader.dailyStats.forEach((date, stats) ->
+                    sumStats(combined.dailyStats.computeIfAbsent(date, key -> new HashMap<>()), stats));
+            reader.tatHistograms.forEach((date, byType) -> byType.forEach((type, histogram) ->
+                    combined.tatHistogram(date, type).merge(histogram)));
+            reader.dayCounts.forEach((date, byType) -> byType.forEach((type, counts) ->
+                    combined.dayCounts(date, type).merge(counts)));
+
+            for (TaskData task : reader.taskList) {
+                String key = taskKey(task.getDocumentSerial(), task.getReferenceNumber());
+                int existing = key == null ? -1 : combined.keyIndex.putIfAbsent(key, combined.taskList.size());
+                if (existing < 0) {
+                    combined.taskList.add(task);
+                } else if (combined.mergeRule.replaces(combined.taskList.get(existing), task.getStatus())) {
+                    combined.retractTaskStatus(combined.taskList.get(existing));
+                    combined.taskList.set(existing, task);
+                } else {
+                    combined.retractTaskStatus(task);
+                }
+            }
+        }
+        combined.finishAggregation();
+        return combined;
+    }
+
+    // Add counters of one statistics map to another; percentages are recalculated afterwards instead of summed
+    private static void sumStats(Map<String, Integer> target, Map<String, Integer> source) {
+        for (Map.Entry<String, Integer> entry : source.entrySet()) {
+            if (!entry.getKey().endsWith("_PERCENTAGE")) {
+                target.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+    }
+
+    // Rebuild a reader from data that was aggregated earlier (snapshot cache) without reading the source again
+    // The cache keeps no TAT histograms or day counts; they are filled again from the rows
+    public static ExcelDataReader restore(TaskSource source, List<TaskData> tasks,
+                                          Map<String, Integer> currentStats,
+                                          Map<String, Map<String, Integer>> documentStats,
+                                          Map<String, Map<String, Integer>> dailyStats) {
+        ExcelDataReader reader = new ExcelDataReader(source);
+        reader.currentStats.putAll(currentStats);
+        documentStats.forEach((type, stats) -> reader.documentStats.put(type, new HashMap<>(stats)));
+        dailyStats.forEach((date, stats) -> reader.dailyStats.put(date, new HashMap<>(stats)));
+        reader.taskList = new ArrayList<>(tasks);
+        reader.keyIndex = new TaskIndex(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            TaskData task = tasks.get(i);
+            String status = task.getStatus().toUpperCase();
+            boolean lodged = "LODGE".equals(status);
+            if (lodged) {
+                reader.applyTat(task.getDate(), task.getDocumentType(), task.getTat(), 1);
+            }
+            if (task.getDocumentType() != null) {
+                reader.dayCounts(task.getDate(), task.getDocumentType()).apply(status,
+                        lodged && isWithinTargetTAT(task.getTat(), task.getDocumentType()), 1);
+            }
+            String key = taskKey(tasks.get(i).getDocumentSerial(), tasks.get(i).getReferenceNumber());
+            if (key != null) {
+                reader.keyIndex.putIfAbsent(key, i);
+            }
+        }
+        return reader;
+    }
+
+    // Order sensitive combination of the row fingerprints; changes when any row is added, removed or changed
+    public long getContentFingerprint() {
+        long hash = taskList.size();
+        for (TaskData task : taskList) {
+            hash = hash * 31 + task.getFingerprint();
+        }
+        return hash;
+    }
+
+    public TaskSource getSource() {
+        return source;
+    }
+
+    // The working date the "NEW" counts were calculated for
+    public String getCurrentDate() {
+        return currentDate;
+    }
+
+    public Map<String, Integer> getCurrentStats() {
+        return Collections.unmodifiableMap(currentStats);
+    }
+
+    public Map<String, Map<String, Integer>> getDocumentStats() {
+        return Collections.unmodifiableMap(documentStats);
+    }
+
+    public Map<String, Map<String, Integer>> getAllDailyStats() {
+        return Collections.unmodifiableMap(dailyStats);
+    }
+
+    // TAT histograms of the completed tasks, date -> document type -> histogram; still changed by later merges
+    public Map<String, Map<String, TatHistogram>> getTatHistograms() {
+        return Collections.unmodifiableMap(tatHistograms);
+    }
+
+    // Status counts, date -> document type -> counts; still changed by later merges
+    public Map<String, Map<String, DayCounts>> getDayCounts() {
+        return Collections.unmodifiableMap(dayCounts);
+    }
+
+    public void setMergeRule(MergeRule mergeRule) {
+        this.mergeRule = mergeRule;
+    }
+
+    // Which row survives when the same document appears more than once
+    public enum MergeRule {
+        // The row read last replaces the earlier one
+        LAST_WRITE_WINS,
+        // The row with the more advanced status is kept (LODGE over PENDING), ties go to the row read last
+        LATEST_STATUS_WINS;
+
+        // Configured with dedup.rule = last-write | latest-status
+        public static MergeRule fromConfig(DashboardConfig config) {
+            return "latest-status".equalsIgnoreCase(config.getString("dedup.rule", "last-write"))
+                    ? LATEST_STATUS_WINS
+                    : LAST_WRITE_WINS;
+        }
+
+        // Whether a newly read row with the given status replaces the current one
+        public boolean replaces(TaskData current, String newStatus) {
+            if (this == LAST_WRITE_WINS) {
+                return true;
+            }
+            return statusRank(newStatus) >= statusRank(current.getStatus());
+        }
+
+        private static int statusRank(String status) {
+            if ("LODGE".equalsIgnoreCase(status)) {
+                return 2;
+            }
+            if ("PENDING".equalsIgnoreCase(status)) {
+                return 1;
+            }
+            return 0;
+        }
+    }
+
+    // Tasks of one day and document type by status; counts go down again when a task is replaced
+    public static final class DayCounts {
+        private int total;
+        private int ongoing;
+        private int completed;
+        private int withinTat;
+        private int overTat;
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getOngoing() {
+            return ongoing;
+        }
+
+        public int getCompleted() {
+            return completed;
+        }
+
+        public int getWithinTat() {
+            return withinTat;
+        }
+
+        public int getOverTat() {
+            return overTat;
+        }
+
+        // Add (delta = 1) or remove (delta = -1) one task with an upper case status
+        private void apply(String status, boolean inTat, int delta) {
+            total += delta;
+            if ("PENDING".equals(status)) {
+                ongoing += delta;
+            } else if ("LODGE".equals(status)) {
+                completed += delta;
+                if (inTat) {
+                    withinTat += delta;
+                } else {
+                    overTat += delta;
+                }
+            }
+        }
+
+        private void merge(DayCounts other) {
+            total += other.total;
+            ongoing += other.ongoing;
+            completed += other.completed;
+            withinTat += other.withinTat;
+            overTat += other.overTat;
+        }
+    }
 
-        // Calculate the percentage of tasks within the TAT for each document type
-        for (String documentType : OptimizedDashboard.getAllDocumentTypes()) {
+    // Calculate the percentage of tasks within the TAT for each document type
+    private void finishAggregation() {
+        for (String documentType : DocumentTypes.getAllDocumentTypes()) {
             calculatePercentages(documentType);
         }
     }
@@ -172,47 +483,59 @@ public class ExcelDataReader {
     }
 
 
-    @Data
+    // Immutable: rows are shared by snapshots, the timeline and the HTTP layer, and the fingerprint must match them
+    @Value
     public static class TaskData {
 
 
-        private String date;
+        private final String date;
 
-        private String documentType;
+        private final String documentType;
 
-        private String applicationReceivedAt;
+        private final String applicationReceivedAt;
 
-        private String scannedAt;
+        private final String scannedAt;
 
-        private String totalTimeAtBranch;
+        private final String totalTimeAtBranch;
 
-        private String verifiedAt;
+        private final String verifiedAt;
 
-        private String totalTimeForVerification;
+        private final String totalTimeForVerification;
 
-        private String lodgementStartedAt;
+        private final String lodgementStartedAt;
 
-        private String confirmedAt;
+        private final String confirmedAt;
 
-        private String totalTimeForEntry;
+        private final String totalTimeForEntry;
 
-        private String complianceVerifiedAt;
+        private final String complianceVerifiedAt;
 
-        private String authorizedAt;
+        private final String authorizedAt;
 
-        private String documentSerial;
+        private final String documentSerial;
 
-        private String referenceNumber;
+        private final String referenceNumber;
 
-        private String detail;
+        private final String detail;
 
-        private String clientName;
+        private final String clientName;
 
-        private String status;
+        private final String status;
 
-        private String tat;
+        private final String tat;
 
-        private String handler;
+        private final String handler;
+
+        // 64-bit hash of all fields, lets a refresh detect changed rows without comparing field by field
+        private final long fingerprint;
+
+        // Column headers (as in the workbook) of the values returned by toFields(), in constructor order
+        public static final String[] COLUMNS = {
+                "DocumentSerial", "ReferenceNumber", "Detail", "Description (ClientDetail)", "Status", "TAT",
+                "AuthorizedBy", "Date", "DocumentType", "ApplicationReceivedAt", "ScannedAt", "TotalTimeAtBranch",
+                "VerifiedAt", "TotalTimeForVerification", "LodgementStartedAt", "ConfirmedAt", "TotalTimeForEntry",
+                "ComplianceVerifiedAt", "AuthorizedAt"
+        };
 
         // Constructor: Used to create the TaskData object and initialize all fields
         public TaskData(String documentSerial, String referenceNumber, String detail,
@@ -241,81 +564,159 @@ public class ExcelDataReader {
             this.totalTimeForEntry = totalTimeForEntry;
             this.complianceVerifiedAt = complianceVerifiedAt;
             this.authorizedAt = authorizedAt;
+            this.fingerprint = fingerprint(documentSerial, referenceNumber, detail, clientName, status, tat,
+                    handler, date, documentType, applicationReceivedAt, scannedAt, totalTimeAtBranch,
+                    verifiedAt, totalTimeForVerification, lodgementStartedAt, confirmedAt, totalTimeForEntry,
+                    complianceVerifiedAt, authorizedAt);
+        }
+
+        // All values in constructor order (see COLUMNS)
+        public String[] toFields() {
+            return new String[] {
+                    documentSerial, referenceNumber, detail, clientName, status, tat, handler, date, documentType,
+                    applicationReceivedAt, scannedAt, totalTimeAtBranch, verifiedAt, totalTimeForVerification,
+                    lodgementStartedAt, confirmedAt, totalTimeForEntry, complianceVerifiedAt, authorizedAt
+            };
+        }
+
+        // FNV-1a over the field characters, with a separator so ("ab", "c") and ("a", "bc") differ
+        private static long fingerprint(String... values) {
+            long hash = 0xcbf29ce484222325L;
+            for (String value : values) {
+                if (value != null) {
+                    for (int i = 0; i < value.length(); i++) {
+                        hash ^= value.charAt(i);
+                        hash *= 0x100000001b3L;
+                    }
+                }
+                hash ^= value == null ? 0x1F : 0x1E;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
         }
     }
 
 
-    private class TaskDataListener implements ReadListener<ExcelModel> {
+    // Ingest a single row coming from any task source
+    private void ingest(ExcelModel data) {
+        // Processing task status and updating statistics based on the row data
+        processTaskStatus(data);
+
+        // Convert the row into a TaskData object and add it to the task list
+        taskList.add(toTaskData(data));
+    }
 
-        @Override
-        public void invoke(ExcelModel data, AnalysisContext context) {
-            // Processing task status and updating statistics based on Excel data
-            processTaskStatus(data);
+    // Ingest a row, de-duplicated by key in the same pass: a row that wins over an earlier row with the same key
+    // replaces it (and the earlier row is taken out of the statistics), a row that loses is dropped
+    private void upsert(ExcelModel data) {
+        // Without a date or status the row can be neither counted nor shown
+        if (data.getDate() == null || data.getStatus() == null) {
+            rowsRejected++;
+            return;
+        }
+        rowsParsed++;
+        String key = taskKey(data.getDocumentSerial(), data.getReferenceNumber());
+        if (key == null) {
+            ingest(data);
+            return;
+        }
+
+        int index = keyIndex.putIfAbsent(key, taskList.size());
+        if (index < 0) {
+            ingest(data);
+            return;
+        }
 
-            // Convert the read Excel data into TaskData objects and add them to the task list
-            taskList.add(new TaskData(
-                    data.getDocumentSerial(),
-                    data.getReferenceNumber(),
-                    data.getDetail(),
-                    data.getClientName(),
-                    data.getStatus(),
-                    data.getTat(),
-                    data.getHandler(),
-                    data.getDate(),
-                    data.getDocumentType(),
-                    data.getApplicationReceivedAt(),
-                    data.getScannedAt(),
-                    data.getTotalTimeAtBranch(),
-                    data.getVerifiedAt(),
-                    data.getTotalTimeForVerification(),
-                    data.getLodgementStartedAt(),
-                    data.getConfirmedAt(),
-                    data.getTotalTimeForEntry(),
-                    data.getComplianceVerifiedAt(),
-                    data.getAuthorizedAt()
-            ));
+        TaskData current = taskList.get(index);
+        if (!mergeRule.replaces(current, data.getStatus())) {
+            return;
         }
 
-        // This method is called after all data parsing is complete
-        @Override
-        public void doAfterAllAnalysed(AnalysisContext context) {
+        // Take the old row out of the statistics before counting the new one
+        retractTaskStatus(current);
+        processTaskStatus(data);
+        taskList.set(index, toTaskData(data));
+    }
+
+    // Identity of a task: DocumentSerial, falling back to ReferenceNumber
+    public static String taskKey(String documentSerial, String referenceNumber) {
+        if (documentSerial != null && !documentSerial.trim().isEmpty()) {
+            return documentSerial.trim();
+        }
+        if (referenceNumber != null && !referenceNumber.trim().isEmpty()) {
+            return "REF:" + referenceNumber.trim();
         }
+        return null;
+    }
+
+    private static TaskData toTaskData(ExcelModel data) {
+        return new TaskData(
+                data.getDocumentSerial(),
+                data.getReferenceNumber(),
+                data.getDetail(),
+                data.getClientName(),
+                data.getStatus(),
+                data.getTat(),
+                data.getHandler(),
+                data.getDate(),
+                data.getDocumentType(),
+                data.getApplicationReceivedAt(),
+                data.getScannedAt(),
+                data.getTotalTimeAtBranch(),
+                data.getVerifiedAt(),
+                data.getTotalTimeForVerification(),
+                data.getLodgementStartedAt(),
+                data.getConfirmedAt(),
+                data.getTotalTimeForEntry(),
+                data.getComplianceVerifiedAt(),
+                data.getAuthorizedAt()
+        );
     }
 
     // 处理任务状态的函数
     private void processTaskStatus(ExcelModel data) {
-        String date = data.getDate();
-        String status = data.getStatus().toUpperCase();
-        String documentType = data.getDocumentType();
-        
+        applyTaskStatus(data.getDate(), data.getStatus(), data.getDocumentType(), data.getTat(), 1);
+    }
+
+    // Undo the statistics of a task that is being replaced
+    private void retractTaskStatus(TaskData task) {
+        applyTaskStatus(task.getDate(), task.getStatus(), task.getDocumentType(), task.getTat(), -1);
+    }
+
+    // Add (delta = 1) or remove (delta = -1) one task from the statistics
+    private void applyTaskStatus(String date, String rawStatus, String documentType, String tat, int delta) {
+        String status = rawStatus.toUpperCase();
+
         // 获取文档类型TAT时间
-        int documentTatHours = OptimizedDashboard.getDocumentTatHours(documentType);
+        int documentTatHours = DocumentTypes.getDocumentTatHours(documentType);
+        // Parsed once for all the statistics below
+        boolean withinTat = "LODGE".equals(status) && isWithinTargetTAT(tat, documentTatHours);
         // 更新文档类型统计
         Map<String, Integer> documentTypeStats = documentStats.getOrDefault(documentType, new HashMap<>());
 
         // Processing of the day's task statistics
         if (date.equals(currentDate)) {
-            currentStats.merge("NEW", 1, Integer::sum); // Add 1 to stats if it's a new mission
-            documentTypeStats.merge("NEW", 1, Integer::sum);
+            currentStats.merge("NEW", delta, Integer::sum); // Add 1 to stats if it's a new mission
+            documentTypeStats.merge("NEW", delta, Integer::sum);
         }
 
         // Ongoing Tasks statistics
         if ("PENDING".equals(status)) {
-            currentStats.merge("ONGOING", 1, Integer::sum);
-            documentTypeStats.merge("ONGOING", 1, Integer::sum);
+            currentStats.merge("ONGOING", delta, Integer::sum);
+            documentTypeStats.merge("ONGOING", delta, Integer::sum);
         }
 
         // Completed Tasks 统计（当天）
         if ("LODGE".equals(status)) { // If the task status is “LODGE”
-            currentStats.merge("COMPLETED", 1, Integer::sum); // Add 1 to the task completion statistic
-            documentTypeStats.merge("COMPLETED", 1, Integer::sum);
+            currentStats.merge("COMPLETED", delta, Integer::sum); // Add 1 to the task completion statistic
+            documentTypeStats.merge("COMPLETED", delta, Integer::sum);
             // Determine if the task is within the TAT
-            if (isWithinTargetTAT(data.getTat(), documentTatHours)) {
-                currentStats.merge("WITHIN_TAT", 1, Integer::sum); // Statistics plus 1 if within TAT
-                documentTypeStats.merge("WITHIN_TAT", 1, Integer::sum);
+            if (withinTat) {
+                currentStats.merge("WITHIN_TAT", delta, Integer::sum); // Statistics plus 1 if within TAT
+                documentTypeStats.merge("WITHIN_TAT", delta, Integer::sum);
             } else {
-                currentStats.merge("OVER_TAT", 1, Integer::sum);
-                documentTypeStats.merge("OVER_TAT", 1, Integer::sum);
+                currentStats.merge("OVER_TAT", delta, Integer::sum);
+                documentTypeStats.merge("OVER_TAT", delta, Integer::sum);
             }
         }
 
@@ -325,18 +726,40 @@ public class ExcelDataReader {
 
 
         if ("PENDING".equals(status)) {
-            dayStats.merge("ONGOING", 1, Integer::sum);
+            dayStats.merge("ONGOING", delta, Integer::sum);
         }
         if ("LODGE".equals(status)) { // If the task status is “LODGE” (completed)
-            dayStats.merge("COMPLETED", 1, Integer::sum);
-            if (isWithinTargetTAT(data.getTat(), documentTatHours)) {
-                dayStats.merge("WITHIN_TAT", 1, Integer::sum);
+            dayStats.merge("COMPLETED", delta, Integer::sum);
+            if (withinTat) {
+                dayStats.merge("WITHIN_TAT", delta, Integer::sum);
             } else {
-                dayStats.merge("OVER_TAT", 1, Integer::sum);
+                dayStats.merge("OVER_TAT", delta, Integer::sum);
             }
+            applyTat(date, documentType, tat, delta);
+        }
+        if (documentType != null) {
+            dayCounts(date, documentType).apply(status, withinTat, delta);
+        }
+    }
+
+    // Add a completed task's TAT to the histogram of its day and type, or take it out again; no TAT, no entry
+    private void applyTat(String date, String documentType, String tat, int delta) {
+        long seconds = parseTatSeconds(tat);
+        if (seconds >= 0) {
+            tatHistogram(date, documentType).add(seconds, delta);
         }
     }
 
+    private TatHistogram tatHistogram(String date, String documentType) {
+        return tatHistograms.computeIfAbsent(date, key -> new HashMap<>())
+                .computeIfAbsent(documentType, key -> new TatHistogram());
+    }
+
+    private DayCounts dayCounts(String date, String documentType) {
+        return dayCounts.computeIfAbsent(date, key -> new HashMap<>())
+                .computeIfAbsent(documentType, key -> new DayCounts());
+    }
+
     private void calculatePercentages(String documentType) {
         // Calculation of total completed missions (within target TAT + exceeding target TAT)
         int totalLodged = currentStats.get("WITHIN_TAT") + currentStats.get("OVER_TAT");
@@ -347,6 +770,10 @@ public class ExcelDataReader {
             int normalPercentage = (currentStats.get("WITHIN_TAT") * 100) / totalLodged;
             currentStats.put("NORMAL_PERCENTAGE", normalPercentage);
             currentStats.put("ABNORMAL_PERCENTAGE", 100 - normalPercentage);
+        } else {
+            // The last completed task was retracted or reclassified
+            currentStats.put("NORMAL_PERCENTAGE", 0);
+            currentStats.put("ABNORMAL_PERCENTAGE", 0);
         }
 
         if (totalLodgedDocument > 0) {
@@ -354,13 +781,16 @@ public class ExcelDataReader {
             int normalPercentage = (documentStats.get(documentType).get("WITHIN_TAT") * 100) / totalLodgedDocument;
             documentStats.get(documentType).put("NORMAL_PERCENTAGE", normalPercentage);
             documentStats.get(documentType).put("ABNORMAL_PERCENTAGE", 100 - normalPercentage);
+        } else {
+            documentStats.get(documentType).put("NORMAL_PERCENTAGE", 0);
+            documentStats.get(documentType).put("ABNORMAL_PERCENTAGE", 0);
         }
     }
     
     public int getNewTasksCount(String documentType) {
         if("all".equals(documentType)){
             int totalNew = 0;
-            for(String type : OptimizedDashboard.getAllDocumentTypes()){
+            for(String type : DocumentTypes.getAllDocumentTypes()){
                 totalNew += currentStats.getOrDefault(type, 0);
             }
             return totalNew;
@@ -372,7 +802,7 @@ public class ExcelDataReader {
     public int getOngoingTasksCount(String documentType) {
         if("all".equals(documentType)){
             int totalOngoing = 0;
-            for(String type : OptimizedDashboard.getAllDocumentTypes()){
+            for(String type : DocumentTypes.getAllDocumentTypes()){
                 totalOngoing += documentStats.get(type).getOrDefault("ONGOING", 0);
             }
             return totalOngoing;
@@ -384,7 +814,7 @@ public class ExcelDataReader {
     public int getCompletedTasksCount(String documentType) {
         if("all".equals(documentType)){
             int totalCompleted = 0;
-            for(String type : OptimizedDashboard.getAllDocumentTypes()){
+            for(String type : DocumentTypes.getAllDocumentTypes()){
                 totalCompleted += documentStats.get(type).getOrDefault("COMPLETED", 0);
             }
             return totalCompleted;
@@ -396,7 +826,7 @@ public class ExcelDataReader {
     public int getNormalTATCount(String documentType) {
         if("all".equals(documentType)){
             int totalNormal = 0;
-            for(String type : OptimizedDashboard.getAllDocumentTypes()){
+            for(String type : DocumentTypes.getAllDocumentTypes()){
                 totalNormal += documentStats.get(type).getOrDefault("WITHIN_TAT", 0);
             }
             return totalNormal;
@@ -408,7 +838,7 @@ public class ExcelDataReader {
     public int getAbnormalTATCount(String documentType) {
         if("all".equals(documentType)){
             int totalAbnormal = 0;
-            for(String type : OptimizedDashboard.getAllDocumentTypes()){
+            for(String type : DocumentTypes.getAllDocumentTypes()){
                 totalAbnormal += documentStats.get(type).getOrDefault("OVER_TAT", 0);
             }
             return totalAbnormal;
@@ -418,21 +848,42 @@ public class ExcelDataReader {
 
 
     public List<TaskData> getTaskList() {
-        return taskList; // Back to the list of tasks
+        return Collections.unmodifiableList(taskList); // Back to the list of tasks, read-only
     }
 
     //  Get statistics for a specified date
     public Map<String, Integer> getDailyStats(String date) {
-        return dailyStats.getOrDefault(date, new HashMap<>()); // Returns the statistics for the specified date, or an empty HashMap if none exists.
+        return Collections.unmodifiableMap(dailyStats.getOrDefault(date, Collections.emptyMap())); // Returns the statistics for the specified date, or an empty map if none exists.
     }
 
     // Get statistics for a given week
     public Map<String, Integer> getWeeklyStats(String week) {
-        return weeklyStats.getOrDefault(week, new HashMap<>());
+        return Collections.unmodifiableMap(weeklyStats.getOrDefault(week, Collections.emptyMap()));
     }
 
 
-    private boolean isWithinTargetTAT(String tatString, int documentTatHours) {
+    // Whether a TAT string ("h:mm:ss") is within the target TAT of the document type
+    public static boolean isWithinTargetTAT(String tatString, String documentType) {
+        return isWithinTargetTAT(tatString, DocumentTypes.getDocumentTatHours(documentType));
+    }
+
+    // Seconds of a TAT string ("h:mm:ss", hours may run past 24), or -1 when it is empty or not a TAT
+    public static long parseTatSeconds(String tatString) {
+        if (tatString == null) {
+            return -1;
+        }
+        String[] parts = tatString.trim().split(":");
+        if (parts.length < 3) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60 + Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static boolean isWithinTargetTAT(String tatString, int documentTatHours) {
         try {
 
             if (tatString == null || tatString.trim().isEmpty()) {
@@ -599,6 +1050,13 @@ public class ExcelDataReader {
 
 
     public List<WeekData> getMonthlyWeekData(String selectedDate) {
+        return getMonthlyWeekData(selectedDate, this::getTasksByDateRange);
+    }
+
+    // Working weeks (Monday to Friday) of the month of the selected date (or of today), with the tasks of each week
+    // from the given lookup, so DashboardSnapshot can use its date index instead of scanning all rows
+    static List<WeekData> getMonthlyWeekData(String selectedDate,
+                                             BiFunction<LocalDate, LocalDate, List<TaskData>> tasksInRange) {
         List<WeekData> weekDataList = new ArrayList<>();
         try {
 
@@ -643,7 +1101,7 @@ public class ExcelDataReader {
                     );
 
 
-                    List<TaskData> weekTasks = getTasksByDateRange(currentDate, weekEnd);
+                    List<TaskData> weekTasks = tasksInRange.apply(currentDate, weekEnd);
 
 
                     weekDataList.add(new WeekData(weekLabel, weekTasks));
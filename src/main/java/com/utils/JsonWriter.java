@@ -0,0 +1,125 @@
+package com.utils;
+
+// Minimal streaming JSON writer for the HTTP endpoints and the command line: appends straight into one StringBuilder,
+// commas between members and elements are inserted automatically
+public class JsonWriter {
+    private final StringBuilder out = new StringBuilder(1024);
+
+    // One flag per open object/array: true until its first member is written
+    private boolean[] first = new boolean[8];
+    private int depth;
+
+    public JsonWriter beginObject() {
+        separator();
+        out.append('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        depth--;
+        out.append('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separator();
+        out.append('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        depth--;
+        out.append(']');
+        return this;
+    }
+
+    // Member name; the value follows with the next call
+    public JsonWriter name(String name) {
+        separator();
+        string(name);
+        out.append(':');
+        // The value that follows must not get a comma of its own
+        first[depth - 1] = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separator();
+        if (value == null) {
+            out.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separator();
+        out.append(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separator();
+        out.append(value);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void push() {
+        if (depth == first.length) {
+            boolean[] grown = new boolean[depth * 2];
+            System.arraycopy(first, 0, grown, 0, depth);
+            first = grown;
+        }
+        first[depth++] = true;
+    }
+
+    private void separator() {
+        if (depth == 0) {
+            return;
+        }
+        if (first[depth - 1]) {
+            first[depth - 1] = false;
+        } else {
+            out.append(',');
+        }
+    }
+
+    private void string(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
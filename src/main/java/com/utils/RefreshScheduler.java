@@ -0,0 +1,171 @@
+package com.utils;
+
+import com.metrics.Histogram;
+import com.metrics.Metrics;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Runs the dashboard refresh with an interval that follows the data:
+// every run that finds no change multiplies the interval by the backoff factor (up to the maximum),
+// every run that finds a change divides it (down to the minimum)
+// The next run is only scheduled when the previous one has finished, so a slow parse never piles up runs,
+// and each delay is spread by a random jitter so many screens on one share do not poll in lockstep
+public class RefreshScheduler {
+    // One refresh; returns true when the data changed
+    public interface RefreshTask {
+        boolean run() throws Exception;
+    }
+
+    // How long each run took, and how much later than planned it started (a busy or starved executor)
+    private static final Histogram DURATION = Metrics.histogram("refresh.duration");
+    private static final Histogram LAG = Metrics.histogram("scheduler.lag");
+
+    private final RefreshTask task;
+    private final long minMillis;
+    private final long maxMillis;
+    private final double backoffFactor;
+    private final double jitter;
+    private final ScheduledExecutorService executor;
+
+    private volatile long intervalMillis;
+    private volatile long lastLatencyMillis = -1;
+    private volatile long lastRunAt;
+    private volatile boolean lastChanged;
+
+    private ScheduledFuture<?> next;
+    private volatile long plannedAt;
+    private boolean running;
+    private boolean triggered;
+
+    public RefreshScheduler(RefreshTask task, long initialMillis, long minMillis, long maxMillis,
+                            double backoffFactor, double jitter) {
+        this.task = task;
+        this.minMillis = Math.max(1, minMillis);
+        this.maxMillis = Math.max(this.minMillis, maxMillis);
+        this.backoffFactor = Math.max(1.0, backoffFactor);
+        this.jitter = Math.min(Math.max(jitter, 0.0), 0.5);
+        this.intervalMillis = clamp(initialMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // refresh.initialSeconds (10), refresh.minSeconds (2), refresh.maxSeconds (300),
+    // refresh.backoffFactor (2.0) and refresh.jitter (0.1 = up to 10% earlier or later)
+    public static RefreshScheduler fromConfig(DashboardConfig config, RefreshTask task) {
+        return new RefreshScheduler(task,
+                config.getLong("refresh.initialSeconds", 10) * 1000,
+                config.getLong("refresh.minSeconds", 2) * 1000,
+                config.getLong("refresh.maxSeconds", 300) * 1000,
+                config.getDouble("refresh.backoffFactor", 2.0),
+                config.getDouble("refresh.jitter", 0.1));
+    }
+
+    // Run right away, then keep adapting
+    public synchronized void start() {
+        schedule(0);
+    }
+
+    // Run as soon as possible (after an import, for example); a run that is in progress is followed by another one,
+    // and any number of triggers during that run still lead to a single extra run
+    public synchronized void triggerNow() {
+        if (running) {
+            triggered = true;
+        } else if (next == null || next.cancel(false)) {
+            schedule(0);
+        }
+    }
+
+    // Stop scheduling and wait up to 2 seconds for a running refresh
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Delay before the next run, before jitter
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    // Duration of the last run, -1 before the first one
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    public long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public boolean isLastChanged() {
+        return lastChanged;
+    }
+
+    private void runOnce() {
+        synchronized (this) {
+            running = true;
+            triggered = false;
+        }
+
+        long start = System.nanoTime();
+        LAG.record((start - plannedAt) / 1000);
+        boolean changed = false;
+        boolean superseded = false;
+        try {
+            changed = task.run();
+        } catch (CancellationException e) {
+            // A newer request took over; it was triggered and runs next, the interval stays as it is
+            superseded = true;
+        } catch (Exception e) {
+            // A failed run counts as "no change" so a missing or locked file is polled less and less often
+            e.printStackTrace();
+        }
+        DURATION.recordSince(start);
+        lastLatencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastRunAt = System.currentTimeMillis();
+        if (!superseded) {
+            lastChanged = changed;
+            intervalMillis = clamp(changed ? (long) (intervalMillis / backoffFactor) : (long) (intervalMillis * backoffFactor));
+        }
+
+        synchronized (this) {
+            running = false;
+            schedule(triggered ? 0 : withJitter(intervalMillis));
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        try {
+            plannedAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            next = executor.schedule(this::runOnce, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down while a run was finishing
+        }
+    }
+
+    private long withJitter(long delayMillis) {
+        if (jitter == 0) {
+            return delayMillis;
+        }
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (delayMillis * factor);
+    }
+
+    private long clamp(long millis) {
+        return Math.min(maxMillis, Math.max(minMillis, millis));
+    }
+}
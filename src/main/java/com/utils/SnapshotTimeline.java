@@ -0,0 +1,168 @@
+package com.utils;
+
+import com.source.TaskSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// In-memory versions of the displayed data, one per refresh that changed something, for the time travel view
+// Versions share structure: rows are kept in fixed size chunks and a chunk whose rows all have the same
+// fingerprints as in the previous version is reused as is; the per type and per day statistics are shared
+// the same way. A new version therefore only costs the chunks and statistics that changed
+// Versions older than the retention window (or beyond the maximum count) are dropped, oldest first
+public class SnapshotTimeline {
+    private static final int CHUNK_SIZE = 1024;
+
+    private final long retentionMillis;
+    private final int maxVersions;
+
+    // Oldest first
+    private final List<Version> versions = new ArrayList<>();
+    private long nextSeq = 1;
+
+    public SnapshotTimeline(long retentionMillis, int maxVersions) {
+        this.retentionMillis = retentionMillis;
+        this.maxVersions = Math.max(1, maxVersions);
+    }
+
+    // timeline.enabled (default true), timeline.retentionMinutes (default one day) and timeline.maxVersions (default 1000)
+    public static SnapshotTimeline fromConfig(DashboardConfig config) {
+        if (!config.getBoolean("timeline.enabled", true)) {
+            return null;
+        }
+        return new SnapshotTimeline(config.getLong("timeline.retentionMinutes", 24 * 60) * 60_000L,
+                config.getInt("timeline.maxVersions", 1000));
+    }
+
+    // Keep the data as a new version if it differs from the latest one; returns the new version or null if unchanged
+    public synchronized Version capture(ExcelDataReader reader) {
+        Version previous = versions.isEmpty() ? null : versions.get(versions.size() - 1);
+        List<ExcelDataReader.TaskData> tasks = reader.getTaskList();
+
+        List<ExcelDataReader.TaskData[]> chunks = new ArrayList<>((tasks.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        boolean rowsChanged = previous == null || previous.rowCount != tasks.size();
+        for (int start = 0; start < tasks.size(); start += CHUNK_SIZE) {
+            int index = start / CHUNK_SIZE;
+            int length = Math.min(CHUNK_SIZE, tasks.size() - start);
+            ExcelDataReader.TaskData[] shared = previous != null && index < previous.chunks.size()
+                    ? previous.chunks.get(index) : null;
+            if (shared != null && sameRows(shared, tasks, start, length)) {
+                chunks.add(shared);
+            } else {
+                chunks.add(tasks.subList(start, start + length).toArray(new ExcelDataReader.TaskData[0]));
+                rowsChanged = true;
+            }
+        }
+
+        Map<String, Integer> currentStats = previous != null && previous.currentStats.equals(reader.getCurrentStats())
+                ? previous.currentStats : Collections.unmodifiableMap(new HashMap<>(reader.getCurrentStats()));
+        Map<String, Map<String, Integer>> documentStats =
+                share(previous != null ? previous.documentStats : null, reader.getDocumentStats());
+        Map<String, Map<String, Integer>> dailyStats =
+                share(previous != null ? previous.dailyStats : null, reader.getAllDailyStats());
+
+        if (!rowsChanged && previous.currentStats == currentStats && previous.documentStats == documentStats
+                && previous.dailyStats == dailyStats) {
+            return null;
+        }
+
+        Version version = new Version(nextSeq++, System.currentTimeMillis(), reader.getSource(), tasks.size(),
+                Collections.unmodifiableList(chunks), currentStats, documentStats, dailyStats);
+        versions.add(version);
+        prune(version.capturedAt);
+        return version;
+    }
+
+    // Retained versions, oldest first
+    public synchronized List<Version> getVersions() {
+        return new ArrayList<>(versions);
+    }
+
+    private void prune(long now) {
+        // The latest version always stays, it is what the screen shows when live
+        while (versions.size() > 1
+                && (versions.size() > maxVersions || now - versions.get(0).capturedAt > retentionMillis)) {
+            versions.remove(0);
+        }
+    }
+
+    private static boolean sameRows(ExcelDataReader.TaskData[] chunk, List<ExcelDataReader.TaskData> tasks,
+                                    int start, int length) {
+        if (chunk.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            ExcelDataReader.TaskData task = tasks.get(start + i);
+            if (chunk[i] != task && chunk[i].getFingerprint() != task.getFingerprint()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reuse the previous map, or the previous inner maps that did not change
+    private static Map<String, Map<String, Integer>> share(Map<String, Map<String, Integer>> previous,
+                                                         Map<String, Map<String, Integer>> current) {
+        boolean allShared = previous != null && previous.size() == current.size();
+        Map<String, Map<String, Integer>> result = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : current.entrySet()) {
+            Map<String, Integer> old = previous != null ? previous.get(entry.getKey()) : null;
+            if (old != null && old.equals(entry.getValue())) {
+                result.put(entry.getKey(), old);
+            } else {
+                result.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+                allShared = false;
+            }
+        }
+        return allShared ? previous : Collections.unmodifiableMap(result);
+    }
+
+    // One retained version of the data; immutable
+    public static class Version {
+        private final long seq;
+        private final long capturedAt;
+        private final TaskSource source;
+        private final int rowCount;
+        private final List<ExcelDataReader.TaskData[]> chunks;
+        private final Map<String, Integer> currentStats;
+        private final Map<String, Map<String, Integer>> documentStats;
+        private final Map<String, Map<String, Integer>> dailyStats;
+
+        Version(long seq, long capturedAt, TaskSource source, int rowCount, List<ExcelDataReader.TaskData[]> chunks,
+                Map<String, Integer> currentStats, Map<String, Map<String, Integer>> documentStats,
+                Map<String, Map<String, Integer>> dailyStats) {
+            this.seq = seq;
+            this.capturedAt = capturedAt;
+            this.source = source;
+            this.rowCount = rowCount;
+            this.chunks = chunks;
+            this.currentStats = currentStats;
+            this.documentStats = documentStats;
+            this.dailyStats = dailyStats;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public long getCapturedAt() {
+            return capturedAt;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        // A reader with the data of this version, for rendering; the version itself is not affected by changes to it
+        public ExcelDataReader toReader() {
+            List<ExcelDataReader.TaskData> tasks = new ArrayList<>(rowCount);
+            for (ExcelDataReader.TaskData[] chunk : chunks) {
+                Collections.addAll(tasks, chunk);
+            }
+            return ExcelDataReader.restore(source, tasks, currentStats, documentStats, dailyStats);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.utils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+// Task dates come as "d-MMM-yy", with English ("1-Oct-24") or Chinese ("1-十月-24") month names
+public final class TaskDates {
+    private static final DateTimeFormatter ENGLISH_FORMAT = DateTimeFormatter.ofPattern("d-MMM-yy", Locale.ENGLISH);
+
+    private TaskDates() {
+    }
+
+    // Parse a task date, or return null if it is not in the expected format
+    public static LocalDate parse(String dateString) {
+        if (dateString == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(toEnglish(dateString.trim()), ENGLISH_FORMAT);
+        } catch (DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    // Replace a Chinese month name with the English abbreviation
+    public static String toEnglish(String dateString) {
+        String[] parts = dateString.split("-");
+        String day = parts[0];
+        String month = convertChineseMonthToEnglish(parts[1]);
+        String year = parts[2];
+
+        return day + "-" + month + "-" + year;
+    }
+
+    public static String convertChineseMonthToEnglish(String chineseMonth) {
+        switch (chineseMonth) {
+            case "一月": return "Jan";
+            case "二月": return "Feb";
+            case "三月": return "Mar";
+            case "四月": return "Apr";
+            case "五月": return "May";
+            case "六月": return "Jun";
+            case "七月": return "Jul";
+            case "八月": return "Aug";
+            case "九月": return "Sep";
+            case "十月": return "Oct";
+            case "十一月": return "Nov";
+            case "十二月": return "Dec";
+            default: return chineseMonth;
+        }
+    }
+}
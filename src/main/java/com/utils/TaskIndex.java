@@ -0,0 +1,104 @@
+package com.utils;
+
+import java.util.Arrays;
+
+// Task key -> row position index used for de-duplication during ingestion
+// Open addressing with linear probing over parallel arrays: no entry objects and no boxing per row,
+// so a lookup costs about as much as the String hash (which the JDK caches per key)
+public class TaskIndex {
+    private static final int EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private String[] keys;
+    private int[] hashes;
+    private int[] values;
+    private int size;
+    private int threshold;
+
+    public TaskIndex() {
+        this(1024);
+    }
+
+    public TaskIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    // Position of the key, or -1 if it is unknown
+    public int get(String key) {
+        int hash = spread(key.hashCode());
+        int mask = keys.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String existing = keys[slot];
+            if (existing == null) {
+                return EMPTY;
+            }
+            if (hashes[slot] == hash && existing.equals(key)) {
+                return values[slot];
+            }
+        }
+    }
+
+    // Store the position if the key is new and return -1; otherwise keep the index unchanged and return the existing position
+    public int putIfAbsent(String key, int value) {
+        int hash = spread(key.hashCode());
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        for (; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return values[slot];
+            }
+        }
+
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = value;
+        if (++size > threshold) {
+            resize();
+        }
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Forget every key but keep the arrays, for an index that is rebuilt on every refresh
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Mix the high bits in, String hashes of serial numbers differ mostly in the low digits
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,117 @@
+package com.utils;
+
+import com.metrics.Histogram;
+
+// TAT seconds of completed tasks, counted in the log-linear buckets of com.metrics.Histogram (each at most 12.5%
+// wide), so p50/p90/p99 come out of a few hundred bytes however many tasks there are
+// Only the run of buckets between the shortest and the longest TAT is allocated (a day of one document type
+// needs a few dozen), and counts can go down again: a task that is replaced is removed the way it was added.
+// Histograms add up with merge(), so a week, a month or all types is the sum of the stored per day histograms
+// Not thread safe: a reader fills its histograms on one thread, and a snapshot keeps copies it never changes
+public final class TatHistogram {
+    private static final int[] EMPTY = new int[0];
+
+    // counts[i] is the number of tasks in bucket first + i
+    private int first;
+    private int[] counts = EMPTY;
+    private long total;
+    // Longest TAT added; after removals an upper bound, at most the top of the highest bucket still in use
+    private long max;
+
+    public TatHistogram() {
+    }
+
+    private TatHistogram(TatHistogram other) {
+        this.first = other.first;
+        this.counts = other.counts.length == 0 ? EMPTY : other.counts.clone();
+        this.total = other.total;
+        this.max = other.max;
+    }
+
+    public TatHistogram copy() {
+        return new TatHistogram(this);
+    }
+
+    // Add (delta = 1) or remove (delta = -1) one TAT in seconds; negative values count as 0
+    public void add(long seconds, int delta) {
+        long value = Math.max(0, seconds);
+        int bucket = Histogram.bucketOf(value);
+        cover(bucket, bucket);
+        counts[bucket - first] += delta;
+        total += delta;
+        if (delta > 0 && value > max) {
+            max = value;
+        } else if (delta < 0 && value >= max) {
+            // Removing can only lower the longest TAT, and it is still within the highest bucket in use
+            max = Math.min(max, highestValue());
+        }
+    }
+
+    // Add all counts of another histogram to this one
+    public void merge(TatHistogram other) {
+        if (other.counts.length == 0) {
+            return;
+        }
+        cover(other.first, other.first + other.counts.length - 1);
+        int offset = other.first - first;
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[offset + i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    // Longest TAT in seconds, 0 when empty
+    public long getMax() {
+        return total == 0 ? 0 : max;
+    }
+
+    // Upper bound in seconds of the bucket holding the given percentile (0-100), capped at the longest TAT;
+    // 0 when empty
+    public long percentile(double percentile) {
+        if (total <= 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(Histogram.upperBound(first + i), max);
+            }
+        }
+        return max;
+    }
+
+    // Top of the highest bucket that still has tasks
+    private long highestValue() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return Histogram.upperBound(first + i);
+            }
+        }
+        return 0;
+    }
+
+    // Grow the bucket window to include buckets from..to
+    private void cover(int from, int to) {
+        if (counts.length == 0) {
+            first = from;
+            counts = new int[to - from + 1];
+            return;
+        }
+        int last = first + counts.length - 1;
+        if (from >= first && to <= last) {
+            return;
+        }
+        int newFirst = Math.min(first, from);
+        int[] grown = new int[Math.max(last, to) - newFirst + 1];
+        System.arraycopy(counts, 0, grown, first - newFirst, counts.length);
+        first = newFirst;
+        counts = grown;
+    }
+}
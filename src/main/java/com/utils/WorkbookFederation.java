@@ -0,0 +1,306 @@
+package com.utils;
+
+import com.source.TaskSource;
+import com.source.TaskSources;
+import com.store.SnapshotCache;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// A set of workbooks (one per branch and month) loaded as separate partitions
+// Files are read concurrently on a bounded pool, one task per file, so the load takes about as long as the largest file
+// Unchanged files keep their partition on refresh; only new or modified files are parsed again
+public class WorkbookFederation {
+    public static final String ALL_BRANCHES = "all";
+
+    // Default branch tag: everything before the first '_' or '.' of the file name, e.g. "HK_2024-10.xlsx" -> "HK"
+    public static final String DEFAULT_BRANCH_PATTERN = "^([^_.]+)";
+
+    private final List<String> patterns;
+    private final Pattern branchPattern;
+    private final ExecutorService pool;
+    private final SnapshotCache cache;
+
+    // Current partitions by file
+    private final Map<Path, Partition> partitions = new LinkedHashMap<>();
+
+    // Merged readers: one per branch plus ALL_BRANCHES, rebuilt after every refresh
+    private volatile Map<String, ExcelDataReader> views = Collections.emptyMap();
+
+    // Files the last refresh matched, and those of them that failed to load
+    private List<Path> lastFiles = Collections.emptyList();
+    private List<Path> lastFailures = Collections.emptyList();
+
+    public WorkbookFederation(List<String> patterns, String branchPattern, int parallelism, SnapshotCache cache) {
+        this.patterns = new ArrayList<>(patterns);
+        this.branchPattern = Pattern.compile(branchPattern);
+        this.cache = cache;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "workbook-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Create the federation from source.paths (comma separated files or globs) if it is configured
+    public static WorkbookFederation fromConfig(DashboardConfig config) {
+        String paths = config.getString("source.paths", null);
+        if (paths == null) {
+            return null;
+        }
+        List<String> patterns = Stream.of(paths.split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toList());
+        return new WorkbookFederation(patterns,
+                config.getString("source.branchPattern", DEFAULT_BRANCH_PATTERN),
+                config.getInt("source.parallelism", Runtime.getRuntime().availableProcessors()),
+                SnapshotCache.fromConfig(config));
+    }
+
+    // Show the last known data of every workbook straight from the snapshot cache, without parsing
+    // The partitions are marked stale, so the next refresh validates them against the files
+    public synchronized void loadLastKnown() {
+        if (cache == null) {
+            return;
+        }
+        for (Path file : resolveFiles()) {
+            Partition partition = new Partition(file, branchOf(file));
+            partition.reader = cache.loadLastKnown(partition.source());
+            if (partition.reader != null) {
+                partitions.put(file, partition);
+            }
+        }
+        views = buildViews();
+    }
+
+    // Re-resolve the file set, load new and changed files in parallel and rebuild the merged views
+    // Returns false when no file was added, changed or removed (the views are then left as they are)
+    public boolean refresh() {
+        return refresh(() -> false);
+    }
+
+    // Same, but gives up (leaving everything as it was) as soon as the cancellation flag turns true
+    public synchronized boolean refresh(BooleanSupplier cancelled) {
+        List<Path> files = resolveFiles();
+
+        List<Partition> stale = new ArrayList<>();
+        for (Path file : files) {
+            Partition partition = partitions.get(file);
+            if (partition == null || partition.isChanged()) {
+                stale.add(new Partition(file, branchOf(file)));
+            }
+        }
+
+        List<Callable<Partition>> tasks = new ArrayList<>();
+        for (Partition partition : stale) {
+            tasks.add(() -> partition.load(cache, cancelled));
+        }
+
+        Map<Path, Partition> loaded = new LinkedHashMap<>();
+        List<Path> failures = new ArrayList<>();
+        try {
+            List<Future<Partition>> futures = pool.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Partition partition = futures.get(i).get();
+                    loaded.put(partition.file, partition);
+                } catch (ExecutionException e) {
+                    // Keep the previous version of a file that failed to load (for example while it is being written)
+                    if (!(e.getCause() instanceof CancellationException)) {
+                        e.getCause().printStackTrace();
+                        failures.add(stale.get(i).file);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Workbook refresh was superseded");
+        }
+        lastFiles = Collections.unmodifiableList(files);
+        lastFailures = Collections.unmodifiableList(failures);
+
+        boolean removed = partitions.keySet().retainAll(files);
+        if (loaded.isEmpty() && !removed && !views.isEmpty()) {
+            return false;
+        }
+        partitions.putAll(loaded);
+        views = buildViews();
+        return true;
+    }
+
+    // Files matched by the patterns at the last refresh
+    public synchronized List<Path> getLastFiles() {
+        return lastFiles;
+    }
+
+    // Files of the last refresh that could not be loaded; the views hold their previous version, if any
+    public synchronized List<Path> getLastFailures() {
+        return lastFailures;
+    }
+
+    // Add another workbook or glob to the set, it is loaded on the next refresh
+    public synchronized void addPath(String pattern) {
+        if (!patterns.contains(pattern)) {
+            patterns.add(pattern);
+        }
+    }
+
+    // Reader for one branch, or for all branches with ALL_BRANCHES
+    public ExcelDataReader getReader(String branch) {
+        ExcelDataReader reader = views.get(branch);
+        return reader != null ? reader : views.get(ALL_BRANCHES);
+    }
+
+    // Branch names in alphabetical order
+    public List<String> getBranches() {
+        return views.keySet().stream()
+                .filter(branch -> !ALL_BRANCHES.equals(branch))
+                .collect(Collectors.toList());
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private Map<String, ExcelDataReader> buildViews() {
+        Map<String, List<ExcelDataReader>> byBranch = new TreeMap<>();
+        List<ExcelDataReader> all = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            byBranch.computeIfAbsent(partition.branch, key -> new ArrayList<>()).add(partition.reader);
+            all.add(partition.reader);
+        }
+
+        Map<String, ExcelDataReader> result = new LinkedHashMap<>();
+        result.put(ALL_BRANCHES, ExcelDataReader.combine(all));
+        byBranch.forEach((branch, readers) -> result.put(branch, ExcelDataReader.combine(readers)));
+        return result;
+    }
+
+    private String branchOf(Path file) {
+        String name = file.getFileName().toString();
+        Matcher matcher = branchPattern.matcher(name);
+        if (matcher.find()) {
+            return matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+        }
+        return name;
+    }
+
+    // Expand the configured paths; a glob like "exports/*.xlsx" or "exports/**/HK_*.xlsx" is matched below its fixed prefix
+    private List<Path> resolveFiles() {
+        List<Path> files = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (!containsGlob(pattern)) {
+                Path file = Paths.get(pattern).toAbsolutePath().normalize();
+                if (Files.isRegularFile(file) && !files.contains(file)) {
+                    files.add(file);
+                }
+                continue;
+            }
+
+            String normalized = pattern.replace('\\', '/');
+            int firstGlob = firstGlobIndex(normalized);
+            int baseEnd = normalized.lastIndexOf('/', firstGlob);
+            Path base = Paths.get(baseEnd < 0 ? "." : normalized.substring(0, Math.max(baseEnd, 1)));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized.substring(baseEnd + 1));
+
+            try (Stream<Path> walk = Files.walk(base)) {
+                walk.filter(Files::isRegularFile)
+                        .filter(file -> matcher.matches(base.relativize(file)))
+                        .filter(file -> !file.getFileName().toString().startsWith("~$"))
+                        .map(file -> file.toAbsolutePath().normalize())
+                        .sorted()
+                        .filter(file -> !files.contains(file))
+                        .forEach(files::add);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return files;
+    }
+
+    private static boolean containsGlob(String pattern) {
+        return firstGlobIndex(pattern) < pattern.length();
+    }
+
+    private static int firstGlobIndex(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return pattern.length();
+    }
+
+    // One workbook, tagged with its branch
+    private static class Partition {
+        private final Path file;
+        private final String branch;
+        private long size = -1;
+        private long modified = -1;
+        private ExcelDataReader reader;
+
+        Partition(Path file, String branch) {
+            this.file = file;
+            this.branch = branch;
+        }
+
+        Partition load(SnapshotCache cache, BooleanSupplier cancelled) throws IOException {
+            // Remember the file version before reading so a write during the read is picked up next time
+            size = Files.size(file);
+            modified = Files.getLastModifiedTime(file).toMillis();
+            TaskSource source = source();
+            reader = cache != null
+                    ? cache.loadOrRead(source, () -> parse(source, cancelled))
+                    : parse(source, cancelled);
+            return this;
+        }
+
+        TaskSource source() {
+            return TaskSources.forPath(file.toString());
+        }
+
+        private static ExcelDataReader parse(TaskSource source, BooleanSupplier cancelled) {
+            ExcelDataReader reader = new ExcelDataReader(source);
+            reader.setCancellation(cancelled);
+            reader.readExcelData();
+            return reader;
+        }
+
+        boolean isChanged() {
+            try {
+                return Files.size(file) != size || Files.getLastModifiedTime(file).toMillis() != modified;
+            } catch (IOException e) {
+                return true;
+            }
+        }
+    }
+}